@@ -74,7 +74,10 @@ public class CustomizeDubboInstrumentation extends ClassInstanceMethodsEnhancePl
                 new InstanceMethodsInterceptPoint() {
                     @Override
                     public ElementMatcher<MethodDescription> getMethodsMatcher() {
-                        return namedOneOf("doInvoke", "invoke", "encode", "decode", "serialize", "deserialize", "sayHello");
+                        // AbstractInvoker.invoke already covers doInvoke
+                        return namedOneOf("invoke", "encode", "decode", "serialize", "deserialize",
+                                "sayHello", "echo", "echoAsync", "fireAndForget", "getUser", "echoUser", "getUserAsync",
+                                "listUsers", "echoUsers");
                     }
 
                     @Override
@@ -18,29 +18,54 @@
 
 package org.apache.dubbo.benchmark.agent;
 
-import org.apache.skywalking.apm.agent.core.context.ContextManager;
 import org.apache.skywalking.apm.agent.core.plugin.interceptor.enhance.EnhancedInstance;
 import org.apache.skywalking.apm.agent.core.plugin.interceptor.enhance.InstanceMethodsAroundInterceptor;
 import org.apache.skywalking.apm.agent.core.plugin.interceptor.enhance.MethodInterceptResult;
-import org.apache.skywalking.apm.agent.core.util.MethodUtil;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-
+/**
+ * Times every intercepted hot path method and hands the duration to the {@link StageProfiler}, no tracing
+ * span or backend is involved.
+ * <p>
+ * Sampling is decided per call tree on a thread, when the outermost timed call starts, so the nested stages of
+ * a sampled call are all timed together. Calls that are not sampled, or whose stage is switched off, only bump
+ * a thread-local counter and never allocate.
+ */
 public class DubboInvokeInterceptor implements InstanceMethodsAroundInterceptor {
+
+    private static final ThreadLocal<CallState> CALL_STATE = ThreadLocal.withInitial(CallState::new);
+
+    private static final ConcurrentMap<Method, Stage> STAGES = new ConcurrentHashMap<>();
+
+    private final StageProfiler profiler = StageProfiler.getInstance();
+
     @Override
     public void beforeMethod(EnhancedInstance objInst, Method method, Object[] allArguments, Class<?>[] argumentsTypes,
                              MethodInterceptResult result) {
-        ContextManager.createLocalSpan(MethodUtil.generateOperationName(method));
+        if (!profiler.isEnabled()) {
+            return;
+        }
+        Stage stage = stageOf(objInst, method);
+        if (stage != null && profiler.isEnabled(stage)) {
+            CALL_STATE.get().enter(profiler.getSampleInterval());
+        }
     }
 
     @Override
     public Object afterMethod(EnhancedInstance objInst, Method method, Object[] allArguments, Class<?>[] argumentsTypes,
                               Object ret) {
-        try {
-            ContextManager.activeSpan();
-        } finally {
-            ContextManager.stopSpan();
+        if (!profiler.isEnabled()) {
+            return ret;
+        }
+        Stage stage = stageOf(objInst, method);
+        if (stage != null && profiler.isEnabled(stage)) {
+            long elapsed = CALL_STATE.get().exit();
+            if (elapsed >= 0) {
+                profiler.record(stage, elapsed);
+            }
         }
         return ret;
     }
@@ -48,8 +73,59 @@ public class DubboInvokeInterceptor implements InstanceMethodsAroundInterceptor
     @Override
     public void handleMethodException(EnhancedInstance objInst, Method method, Object[] allArguments,
                                       Class<?>[] argumentsTypes, Throwable t) {
-        if (ContextManager.isActive()) {
-            ContextManager.activeSpan().log(t);
+        // afterMethod is still invoked and records the failed call
+    }
+
+    private static Stage stageOf(EnhancedInstance objInst, Method method) {
+        Stage stage = STAGES.get(method);
+        if (stage == null) {
+            stage = Stage.of(objInst.getClass(), method.getName());
+            if (stage != null) {
+                STAGES.putIfAbsent(method, stage);
+            }
+        }
+        return stage;
+    }
+
+    /**
+     * Nesting depth, sampling decision and start times of the timed calls on one thread.
+     */
+    private static final class CallState {
+
+        private long[] times = new long[16];
+
+        private int depth;
+
+        private boolean sampled;
+
+        private int countdown;
+
+        void enter(int sampleInterval) {
+            if (depth == 0) {
+                if (--countdown <= 0) {
+                    countdown = sampleInterval;
+                    sampled = true;
+                } else {
+                    sampled = false;
+                }
+            }
+            if (depth == times.length) {
+                long[] grown = new long[times.length * 2];
+                System.arraycopy(times, 0, grown, 0, depth);
+                times = grown;
+            }
+            times[depth++] = sampled ? System.nanoTime() : 0;
+        }
+
+        /**
+         * Returns the elapsed nanos of the call, or -1 when it is not sampled.
+         */
+        long exit() {
+            if (depth == 0) {
+                return -1;
+            }
+            long start = times[--depth];
+            return sampled ? System.nanoTime() - start : -1;
         }
     }
 }
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.dubbo.benchmark.agent;
+
+/**
+ * Hot path stages of a Dubbo call, each timed inclusively of the stages nested in it.
+ */
+public enum Stage {
+
+    PROXY("proxy"),
+
+    INVOKER("invoker"),
+
+    ENCODE("encode"),
+
+    DECODE("decode"),
+
+    SERIALIZE("serialize"),
+
+    DESERIALIZE("deserialize"),
+
+    BUSINESS("business");
+
+    private final String key;
+
+    Stage(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Maps an intercepted method to its stage, returns null for methods that are not timed.
+     */
+    static Stage of(Class<?> type, String methodName) {
+        String className = type.getName();
+        switch (methodName) {
+            case "invoke":
+                return className.endsWith("InvokerInvocationHandler") ? PROXY : INVOKER;
+            case "encode":
+                return ENCODE;
+            case "decode":
+                return DECODE;
+            case "serialize":
+                return SERIALIZE;
+            case "deserialize":
+                return DESERIALIZE;
+            default:
+                // DemoService methods, the consumer side proxy is already timed by InvokerInvocationHandler
+                return className.contains("Proxy") ? null : BUSINESS;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.dubbo.benchmark.agent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-process profiler of the Dubbo hot path.
+ * <p>
+ * Calling threads publish {@code (stage, nanos)} samples into a lock-free ring buffer, a single daemon thread
+ * drains it into one {@link StageHistogram} per {@link Stage}. When the ring buffer is lapped the oldest samples
+ * are overwritten and counted as dropped, a calling thread never waits.
+ * <p>
+ * The profiler is enabled by {@code -Dbenchmark.profile.dir}, the histograms are written into that directory as
+ * one json file per JVM on shutdown. Samples are only kept while {@code benchmark.profile.phase} is
+ * {@code measurement}, the scenario name is taken from {@code benchmark.scenario}, both are set by the benchmark.
+ * <p>
+ * {@code -Dbenchmark.profile.sample.rate} (0 to 1, default 1) samples a fraction of the calls and
+ * {@code -Dbenchmark.profile.stages} (comma separated stage keys, default all) restricts the timed stages.
+ */
+public final class StageProfiler {
+
+    public static final String DIR_KEY = "benchmark.profile.dir";
+
+    public static final String PHASE_KEY = "benchmark.profile.phase";
+
+    public static final String SCENARIO_KEY = "benchmark.scenario";
+
+    public static final String SAMPLE_RATE_KEY = "benchmark.profile.sample.rate";
+
+    public static final String STAGES_KEY = "benchmark.profile.stages";
+
+    public static final String MEASUREMENT = "measurement";
+
+    private static final int CAPACITY = 1 << 20;
+
+    private static final int MASK = CAPACITY - 1;
+
+    private static final int STAGE_SHIFT = 56;
+
+    private static final long NANOS_MASK = (1L << STAGE_SHIFT) - 1;
+
+    private static final long DRAIN_INTERVAL_MILLIS = 10;
+
+    private static final StageProfiler INSTANCE = new StageProfiler(System.getProperty(DIR_KEY));
+
+    private final AtomicLongArray buffer;
+
+    private final AtomicLong cursor = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final StageHistogram[] histograms = new StageHistogram[Stage.values().length];
+
+    private final File dir;
+
+    private final boolean[] stageEnabled = new boolean[Stage.values().length];
+
+    private final int sampleInterval;
+
+    private long readCursor;
+
+    private StageProfiler(String dir) {
+        this.dir = dir == null || dir.isEmpty() ? null : new File(dir);
+        this.buffer = this.dir == null ? null : new AtomicLongArray(CAPACITY);
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new StageHistogram();
+        }
+        this.sampleInterval = sampleInterval(System.getProperty(SAMPLE_RATE_KEY));
+        String stages = System.getProperty(STAGES_KEY);
+        for (Stage stage : Stage.values()) {
+            stageEnabled[stage.ordinal()] = this.dir != null && this.sampleInterval > 0
+                    && (stages == null || stages.isEmpty() || ("," + stages.replace(" ", "") + ",").contains("," + stage.getKey() + ","));
+        }
+        if (this.dir != null) {
+            Thread aggregator = new Thread(this::aggregate, "dubbo-benchmark-stage-profiler");
+            aggregator.setDaemon(true);
+            aggregator.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::dump, "dubbo-benchmark-stage-profiler-dump"));
+        }
+    }
+
+    public static StageProfiler getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return dir != null;
+    }
+
+    public boolean isEnabled(Stage stage) {
+        return stageEnabled[stage.ordinal()];
+    }
+
+    /**
+     * One call tree out of this many is timed, 0 when sampling is off.
+     */
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    private static int sampleInterval(String rate) {
+        if (rate == null || rate.isEmpty()) {
+            return 1;
+        }
+        double value = Double.parseDouble(rate);
+        if (value <= 0) {
+            return 0;
+        }
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.round(1 / Math.min(value, 1))));
+    }
+
+    public void record(Stage stage, long nanos) {
+        if (dir == null) {
+            return;
+        }
+        // the stage is stored off by one so that an empty slot is always 0
+        long sample = ((long) (stage.ordinal() + 1) << STAGE_SHIFT) | Math.min(Math.max(nanos, 0), NANOS_MASK);
+        long previous = buffer.getAndSet((int) (cursor.getAndIncrement() & MASK), sample);
+        if (previous != 0) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void aggregate() {
+        while (true) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(DRAIN_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            drain();
+        }
+    }
+
+    private synchronized void drain() {
+        boolean keep = MEASUREMENT.equals(System.getProperty(PHASE_KEY));
+        long end = cursor.get();
+        if (end - readCursor > CAPACITY) {
+            readCursor = end - CAPACITY;
+        }
+        for (; readCursor < end; readCursor++) {
+            long sample = buffer.getAndSet((int) (readCursor & MASK), 0);
+            if (sample == 0) {
+                // claimed but not yet published, pick it up next round
+                break;
+            }
+            if (keep) {
+                histograms[(int) (sample >>> STAGE_SHIFT) - 1].record(sample & NANOS_MASK);
+            }
+        }
+    }
+
+    private synchronized void dump() {
+        drain();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            return;
+        }
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        String pid = name.contains("@") ? name.substring(0, name.indexOf('@')) : name;
+        File file = new File(dir, "stage-profile-" + pid + ".json");
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            writer.write(toJson());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private String toJson() {
+        String scenario = System.getProperty(SCENARIO_KEY, "");
+        StringBuilder json = new StringBuilder(512)
+                .append("{\"scenario\":\"").append(scenario.replace("\\", "\\\\").replace("\"", "\\\""))
+                .append("\",\"unit\":\"ns\",\"sampleInterval\":").append(sampleInterval)
+                .append(",\"dropped\":").append(dropped.get())
+                .append(",\"stages\":[");
+        boolean first = true;
+        for (Stage stage : Stage.values()) {
+            StageHistogram histogram = histograms[stage.ordinal()];
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"stage\":\"").append(stage.getKey())
+                    .append("\",\"count\":").append(histogram.getTotalCount())
+                    .append(",\"mean\":").append(histogram.getMean())
+                    .append(",\"p50\":").append(histogram.getValueAtPercentile(50))
+                    .append(",\"p90\":").append(histogram.getValueAtPercentile(90))
+                    .append(",\"p99\":").append(histogram.getValueAtPercentile(99))
+                    .append(",\"p99.9\":").append(histogram.getValueAtPercentile(99.9))
+                    .append(",\"max\":").append(histogram.getMax())
+                    .append('}');
+        }
+        return json.append("]}").toString();
+    }
+}
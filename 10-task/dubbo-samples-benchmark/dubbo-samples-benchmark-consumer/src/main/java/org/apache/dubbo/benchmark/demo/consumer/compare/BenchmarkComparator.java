@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.benchmark.demo.consumer.compare;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Compares the JMH results of two or more runs, for example of different Dubbo versions or runtime parameters.
+ * <p>
+ * The first result set is the baseline, every other set is compared against it benchmark by benchmark.
+ * A result set is given as {@code label=path[,path...]} where a path is a JMH json result file or a directory
+ * holding the {@code jmh_result_prop[...]_<uuid>.json} files written by the consumer, other files in it are ignored.
+ * <pre>
+ * java -cp ... org.apache.dubbo.benchmark.demo.consumer.compare.BenchmarkComparator \
+ *     -r 3.2=/data/3.2 -r 3.3=/data/3.3 -o /tmp/jmh_compare --fail-on-regression
+ * </pre>
+ * Writes {@code comparison.json} and {@code comparison.html} to the output directory.
+ */
+public class BenchmarkComparator {
+
+    private final double confidence;
+
+    private final double thresholdPercent;
+
+    public BenchmarkComparator(double confidence, double thresholdPercent) {
+        this.confidence = confidence;
+        this.thresholdPercent = thresholdPercent;
+    }
+
+    public List<Comparison> compare(List<ResultSet> resultSets) {
+        ResultSet baseline = resultSets.get(0);
+        List<Comparison> comparisons = new ArrayList<>();
+        for (ResultSet candidate : resultSets.subList(1, resultSets.size())) {
+            Set<ResultKey> keys = new TreeSet<>(baseline.keys());
+            keys.addAll(candidate.keys());
+            for (ResultKey key : keys) {
+                Map<String, double[]> baselineMetrics = baseline.getObservations(key);
+                Map<String, double[]> candidateMetrics = candidate.getObservations(key);
+                Set<String> metrics = new TreeSet<>(baselineMetrics.keySet());
+                metrics.addAll(candidateMetrics.keySet());
+                String unit = baseline.getUnits().getOrDefault(key, candidate.getUnits().get(key));
+                for (String metric : metrics) {
+                    Comparison comparison = new Comparison(key, metric, unit, baseline.getLabel(), candidate.getLabel());
+                    comparison.compute(baselineMetrics.getOrDefault(metric, new double[0]),
+                            candidateMetrics.getOrDefault(metric, new double[0]), confidence, thresholdPercent);
+                    comparisons.add(comparison);
+                }
+            }
+        }
+        return comparisons;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = new Options();
+        options.addOption(Option.builder("r").longOpt("result").hasArg().argName("label=path[,path]").required()
+                .desc("result set, the first one is the baseline, repeat for every other set").build());
+        options.addOption(Option.builder("o").longOpt("output").hasArg().argName("dir")
+                .desc("output directory, default ./jmh-compare").build());
+        options.addOption(Option.builder("c").longOpt("confidence").hasArg().argName("level")
+                .desc("confidence level of the intervals and tests, default 0.95").build());
+        options.addOption(Option.builder("t").longOpt("threshold").hasArg().argName("percent")
+                .desc("smallest change in percent that is flagged, default 5").build());
+        options.addOption(Option.builder().longOpt("fail-on-regression")
+                .desc("exit with status 1 when a regression is flagged").build());
+
+        CommandLine commandLine;
+        try {
+            commandLine = new DefaultParser().parse(options, args);
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            new HelpFormatter().printHelp(BenchmarkComparator.class.getSimpleName(), options);
+            System.exit(2);
+            return;
+        }
+        String[] specs = commandLine.getOptionValues("r");
+        if (specs.length < 2) {
+            System.err.println("At least two result sets are needed");
+            System.exit(2);
+        }
+
+        List<ResultSet> resultSets = new ArrayList<>();
+        for (String spec : specs) {
+            String label = spec.contains("=") ? spec.substring(0, spec.indexOf('=')) : spec;
+            ResultSet resultSet = new ResultSet(label);
+            for (String path : spec.substring(spec.indexOf('=') + 1).split(",")) {
+                resultSet.load(new File(path));
+            }
+            resultSets.add(resultSet);
+        }
+
+        double confidence = Double.parseDouble(commandLine.getOptionValue("c", "0.95"));
+        double threshold = Double.parseDouble(commandLine.getOptionValue("t", "5"));
+        List<Comparison> comparisons = new BenchmarkComparator(confidence, threshold).compare(resultSets);
+
+        File output = new File(commandLine.getOptionValue("o", "jmh-compare"));
+        if (!output.isDirectory() && !output.mkdirs()) {
+            throw new IOException("Cannot create " + output);
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("confidence", confidence);
+        report.put("thresholdPercent", threshold);
+        report.put("comparisons", comparisons);
+        Gson gson = new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create();
+        write(new File(output, "comparison.json"), gson.toJson(report));
+        write(new File(output, "comparison.html"), HtmlReport.render(comparisons, confidence, threshold));
+
+        long regressions = comparisons.stream().filter(c -> c.getStatus() == Comparison.Status.REGRESSION).count();
+        comparisons.stream().filter(c -> c.getStatus() == Comparison.Status.REGRESSION).forEach(c ->
+                System.out.printf("REGRESSION %s %s [%s] %s %s: %+.2f%% (p=%.4f)%n", c.getCandidate(), c.getBenchmark(),
+                        c.getMode(), c.getParams(), c.getMetric(), c.getDeltaPercent(), c.getPValue()));
+        System.out.println(comparisons.size() + " comparisons, " + regressions + " regressions, report in " + output);
+        if (regressions > 0 && commandLine.hasOption("fail-on-regression")) {
+            System.exit(1);
+        }
+    }
+
+    private static void write(File file, String content) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.benchmark.demo.consumer.compare;
+
+/**
+ * One metric of one benchmark, candidate result set against the baseline. Deltas are relative to the
+ * baseline mean in percent, the interval is the Welch confidence interval of the difference of the means.
+ */
+public class Comparison {
+
+    public enum Status {
+        REGRESSION, IMPROVEMENT, UNCHANGED, INSUFFICIENT_DATA, MISSING
+    }
+
+    private String benchmark;
+
+    private String mode;
+
+    private String prop;
+
+    private String params;
+
+    private String metric;
+
+    private String unit;
+
+    private boolean higherIsBetter;
+
+    private String baseline;
+
+    private String candidate;
+
+    private int baselineCount;
+
+    private int candidateCount;
+
+    private double baselineMean;
+
+    private double candidateMean;
+
+    private double deltaPercent;
+
+    private double ciLowPercent;
+
+    private double ciHighPercent;
+
+    private double pValue;
+
+    private Status status;
+
+    Comparison(ResultKey key, String metric, String unit, String baseline, String candidate) {
+        this.benchmark = key.getBenchmark();
+        this.mode = key.getMode();
+        this.prop = key.getProp();
+        this.params = key.getParams();
+        this.metric = metric;
+        this.unit = unit;
+        this.higherIsBetter = "thrpt".equals(mode);
+        this.baseline = baseline;
+        this.candidate = candidate;
+    }
+
+    /**
+     * Fills in the statistics, a change is significant when its p value is below {@code 1 - confidence}
+     * and it moves the mean by at least {@code thresholdPercent}.
+     */
+    void compute(double[] baselineValues, double[] candidateValues, double confidence, double thresholdPercent) {
+        baselineCount = baselineValues.length;
+        candidateCount = candidateValues.length;
+        if (baselineCount == 0 || candidateCount == 0) {
+            status = Status.MISSING;
+            baselineMean = Statistics.mean(baselineValues);
+            candidateMean = Statistics.mean(candidateValues);
+            deltaPercent = ciLowPercent = ciHighPercent = pValue = Double.NaN;
+            return;
+        }
+        double[] welch = Statistics.welch(baselineValues, candidateValues, confidence);
+        baselineMean = Statistics.mean(baselineValues);
+        candidateMean = Statistics.mean(candidateValues);
+        deltaPercent = welch[0] * 100 / baselineMean;
+        ciLowPercent = welch[1] * 100 / baselineMean;
+        ciHighPercent = welch[2] * 100 / baselineMean;
+        pValue = welch[3];
+
+        if (Double.isNaN(pValue)) {
+            status = Status.INSUFFICIENT_DATA;
+        } else if (pValue < 1 - confidence && Math.abs(deltaPercent) >= thresholdPercent) {
+            boolean worse = higherIsBetter ? deltaPercent < 0 : deltaPercent > 0;
+            status = worse ? Status.REGRESSION : Status.IMPROVEMENT;
+        } else {
+            status = Status.UNCHANGED;
+        }
+    }
+
+    public String getBenchmark() {
+        return benchmark;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public String getProp() {
+        return prop;
+    }
+
+    public String getParams() {
+        return params;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public String getBaseline() {
+        return baseline;
+    }
+
+    public String getCandidate() {
+        return candidate;
+    }
+
+    public int getBaselineCount() {
+        return baselineCount;
+    }
+
+    public int getCandidateCount() {
+        return candidateCount;
+    }
+
+    public double getBaselineMean() {
+        return baselineMean;
+    }
+
+    public double getCandidateMean() {
+        return candidateMean;
+    }
+
+    public double getDeltaPercent() {
+        return deltaPercent;
+    }
+
+    public double getCiLowPercent() {
+        return ciLowPercent;
+    }
+
+    public double getCiHighPercent() {
+        return ciHighPercent;
+    }
+
+    public double getPValue() {
+        return pValue;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.benchmark.demo.consumer.compare;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Renders the comparisons as a single self contained html page.
+ */
+final class HtmlReport {
+
+    private HtmlReport() {
+    }
+
+    static String render(List<Comparison> comparisons, double confidence, double thresholdPercent) {
+        StringBuilder html = new StringBuilder(4096)
+                .append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n")
+                .append("<title>Dubbo benchmark comparison</title>\n<style>\n")
+                .append("body{font-family:sans-serif;font-size:13px}table{border-collapse:collapse}")
+                .append("th,td{border:1px solid #ccc;padding:3px 6px;text-align:right}td.l{text-align:left}")
+                .append("tr.REGRESSION{background:#f8d0d0}tr.IMPROVEMENT{background:#d0f0d0}")
+                .append("tr.INSUFFICIENT_DATA,tr.MISSING{color:#888}\n</style>\n</head>\n<body>\n")
+                .append("<h2>Dubbo benchmark comparison</h2>\n<p>")
+                .append(format("Confidence %.0f%%, significant changes of at least %.1f%% are flagged.",
+                        confidence * 100, thresholdPercent))
+                .append("</p>\n<table>\n<tr><th>status</th><th>benchmark</th><th>params</th><th>mode</th><th>prop</th>")
+                .append("<th>metric</th><th>baseline</th><th>candidate</th><th>baseline mean</th><th>candidate mean</th>")
+                .append("<th>unit</th><th>delta %</th><th>ci %</th><th>p</th><th>n</th></tr>\n");
+        for (Comparison c : comparisons) {
+            html.append("<tr class=\"").append(c.getStatus()).append("\">")
+                    .append("<td class=\"l\">").append(c.getStatus()).append("</td>")
+                    .append("<td class=\"l\">").append(escape(c.getBenchmark())).append("</td>")
+                    .append("<td class=\"l\">").append(escape(c.getParams())).append("</td>")
+                    .append("<td class=\"l\">").append(escape(c.getMode())).append("</td>")
+                    .append("<td class=\"l\">").append(escape(c.getProp())).append("</td>")
+                    .append("<td class=\"l\">").append(escape(c.getMetric())).append("</td>")
+                    .append("<td class=\"l\">").append(escape(c.getBaseline())).append("</td>")
+                    .append("<td class=\"l\">").append(escape(c.getCandidate())).append("</td>")
+                    .append("<td>").append(format("%.3f", c.getBaselineMean())).append("</td>")
+                    .append("<td>").append(format("%.3f", c.getCandidateMean())).append("</td>")
+                    .append("<td>").append(escape(c.getUnit())).append("</td>")
+                    .append("<td>").append(format("%+.2f", c.getDeltaPercent())).append("</td>")
+                    .append("<td>").append(format("[%+.2f, %+.2f]", c.getCiLowPercent(), c.getCiHighPercent())).append("</td>")
+                    .append("<td>").append(format("%.4f", c.getPValue())).append("</td>")
+                    .append("<td>").append(c.getBaselineCount()).append('/').append(c.getCandidateCount()).append("</td>")
+                    .append("</tr>\n");
+        }
+        return html.append("</table>\n</body>\n</html>\n").toString();
+    }
+
+    private static String format(String pattern, Object... args) {
+        return String.format(Locale.ROOT, pattern, args);
+    }
+
+    private static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
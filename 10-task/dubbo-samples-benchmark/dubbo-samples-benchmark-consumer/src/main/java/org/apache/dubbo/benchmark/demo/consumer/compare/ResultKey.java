@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.benchmark.demo.consumer.compare;
+
+import java.util.Objects;
+
+/**
+ * Identifies one benchmark result across runs: benchmark, mode, runtime prop and the scenario params,
+ * the {@code time} param only labels a run and is left out.
+ */
+public class ResultKey implements Comparable<ResultKey> {
+
+    private final String benchmark;
+
+    private final String mode;
+
+    private final String prop;
+
+    private final String params;
+
+    public ResultKey(String benchmark, String mode, String prop, String params) {
+        this.benchmark = benchmark;
+        this.mode = mode;
+        this.prop = prop == null ? "" : prop;
+        this.params = params == null ? "" : params;
+    }
+
+    public String getBenchmark() {
+        return benchmark;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public String getProp() {
+        return prop;
+    }
+
+    public String getParams() {
+        return params;
+    }
+
+    @Override
+    public int compareTo(ResultKey o) {
+        return toString().compareTo(o.toString());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ResultKey)) {
+            return false;
+        }
+        ResultKey that = (ResultKey) o;
+        return benchmark.equals(that.benchmark) && mode.equals(that.mode)
+                && prop.equals(that.prop) && params.equals(that.params);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(benchmark, mode, prop, params);
+    }
+
+    @Override
+    public String toString() {
+        return benchmark + (params.isEmpty() ? "" : ":" + params) + " [" + mode + "] " + prop;
+    }
+}
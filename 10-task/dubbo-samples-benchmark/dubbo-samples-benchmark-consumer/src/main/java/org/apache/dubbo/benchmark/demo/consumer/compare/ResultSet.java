@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.benchmark.demo.consumer.compare;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The JMH results of one or more runs of the same setup, for example one Dubbo version.
+ * <p>
+ * Each result contributes one observation per fork, or one per iteration when it was run with a single fork,
+ * results of the same {@link ResultKey} found in several files are pooled.
+ */
+public class ResultSet {
+
+    static final String SCORE = "score";
+
+    static final String RESULT_PREFIX = "jmh_result_";
+
+    private static final String[] PERCENTILES = {"p50", "p90", "p99", "p99.9", "p99.99"};
+
+    private static final double[] PERCENTILE_VALUES = {50, 90, 99, 99.9, 99.99};
+
+    private final String label;
+
+    private final Map<ResultKey, Map<String, List<Double>>> observations = new TreeMap<>();
+
+    private final Map<ResultKey, String> units = new TreeMap<>();
+
+    public ResultSet(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public List<ResultKey> keys() {
+        return Collections.unmodifiableList(new ArrayList<>(observations.keySet()));
+    }
+
+    public Map<ResultKey, String> getUnits() {
+        return units;
+    }
+
+    /**
+     * Returns the observations per metric, throughput in ops/s and latencies in us/op.
+     */
+    public Map<String, double[]> getObservations(ResultKey key) {
+        Map<String, double[]> metrics = new LinkedHashMap<>();
+        Map<String, List<Double>> values = observations.get(key);
+        if (values != null) {
+            values.forEach((metric, list) -> metrics.put(metric, list.stream().mapToDouble(Double::doubleValue).toArray()));
+        }
+        return metrics;
+    }
+
+    /**
+     * Loads a JMH json result file, or from a directory the {@value #RESULT_PREFIX}*.json files the consumer writes.
+     * Those already hold the throughput results next to the samples, so the raw per-run files the consumer merged
+     * into them are not picked up a second time. Elements that are not JMH results are skipped.
+     */
+    public void load(File path) throws IOException {
+        if (path.isDirectory()) {
+            File[] files = path.listFiles((dir, name) -> name.startsWith(RESULT_PREFIX) && name.endsWith(".json"));
+            if (files != null) {
+                Arrays.sort(files);
+                for (File file : files) {
+                    load(file);
+                }
+            }
+            return;
+        }
+        JsonElement root;
+        try (Reader reader = Files.newBufferedReader(path.toPath(), StandardCharsets.UTF_8)) {
+            root = JsonParser.parseReader(reader);
+        }
+        if (!root.isJsonArray()) {
+            return;
+        }
+        for (JsonElement element : root.getAsJsonArray()) {
+            if (element.isJsonObject() && element.getAsJsonObject().has("primaryMetric")) {
+                add(element.getAsJsonObject());
+            }
+        }
+    }
+
+    private void add(JsonObject result) {
+        String mode = result.get("mode").getAsString();
+        ResultKey key = keyOf(result, mode);
+        JsonObject metric = result.getAsJsonObject("primaryMetric");
+        String scoreUnit = metric.get("scoreUnit").getAsString();
+        Map<String, List<Double>> metrics = observations.computeIfAbsent(key, k -> new LinkedHashMap<>());
+
+        if ("sample".equals(mode)) {
+            units.put(key, "us/op");
+            double scale = latencyScaleToMicros(scoreUnit);
+            for (List<double[]> histogram : histograms(metric.getAsJsonArray("rawDataHistogram"))) {
+                metrics.computeIfAbsent("mean", k -> new ArrayList<>()).add(mean(histogram) * scale);
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    metrics.computeIfAbsent(PERCENTILES[i], k -> new ArrayList<>())
+                            .add(percentile(histogram, PERCENTILE_VALUES[i]) * scale);
+                }
+            }
+        } else {
+            boolean throughput = "thrpt".equals(mode);
+            units.put(key, throughput ? "ops/s" : "us/op");
+            double scale = throughput ? throughputScaleToSeconds(scoreUnit) : latencyScaleToMicros(scoreUnit);
+            List<Double> scores = metrics.computeIfAbsent(SCORE, k -> new ArrayList<>());
+            for (double[] values : scores(metric.getAsJsonArray("rawData"))) {
+                scores.add(Statistics.mean(values) * scale);
+            }
+        }
+    }
+
+    private static ResultKey keyOf(JsonObject result, String mode) {
+        String prop = "";
+        StringBuilder params = new StringBuilder();
+        if (result.has("params")) {
+            Map<String, String> sorted = new TreeMap<>();
+            result.getAsJsonObject("params").entrySet().forEach(e -> sorted.put(e.getKey(), e.getValue().getAsString()));
+            prop = sorted.getOrDefault("prop", "");
+            for (Map.Entry<String, String> entry : sorted.entrySet()) {
+                if (!"time".equals(entry.getKey()) && !"prop".equals(entry.getKey())) {
+                    params.append(params.length() == 0 ? "" : ",").append(entry.getKey()).append('=').append(entry.getValue());
+                }
+            }
+        }
+        return new ResultKey(result.get("benchmark").getAsString(), mode, prop, params.toString());
+    }
+
+    /**
+     * Groups iteration scores per fork, or returns every iteration on its own when there is a single fork.
+     */
+    private static List<double[]> scores(JsonArray forks) {
+        List<double[]> groups = new ArrayList<>();
+        if (forks == null) {
+            return groups;
+        }
+        for (JsonElement fork : forks) {
+            JsonArray iterations = fork.getAsJsonArray();
+            double[] values = new double[iterations.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = iterations.get(i).getAsDouble();
+            }
+            groups.add(values);
+        }
+        if (groups.size() == 1) {
+            double[] only = groups.get(0);
+            groups.clear();
+            for (double value : only) {
+                groups.add(new double[]{value});
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Merges the iteration histograms per fork, or keeps each iteration on its own when there is a single fork.
+     */
+    private static List<List<double[]>> histograms(JsonArray forks) {
+        List<List<double[]>> groups = new ArrayList<>();
+        if (forks == null) {
+            return groups;
+        }
+        boolean singleFork = forks.size() == 1;
+        for (JsonElement fork : forks) {
+            List<double[]> merged = new ArrayList<>();
+            for (JsonElement iteration : fork.getAsJsonArray()) {
+                List<double[]> buckets = singleFork ? new ArrayList<>() : merged;
+                for (JsonElement bucket : iteration.getAsJsonArray()) {
+                    JsonArray pair = bucket.getAsJsonArray();
+                    buckets.add(new double[]{pair.get(0).getAsDouble(), pair.get(1).getAsDouble()});
+                }
+                if (singleFork && !buckets.isEmpty()) {
+                    groups.add(buckets);
+                }
+            }
+            if (!singleFork && !merged.isEmpty()) {
+                groups.add(merged);
+            }
+        }
+        for (List<double[]> histogram : groups) {
+            histogram.sort((a, b) -> Double.compare(a[0], b[0]));
+        }
+        return groups;
+    }
+
+    private static double mean(List<double[]> histogram) {
+        double sum = 0;
+        double count = 0;
+        for (double[] bucket : histogram) {
+            sum += bucket[0] * bucket[1];
+            count += bucket[1];
+        }
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    private static double percentile(List<double[]> histogram, double percentile) {
+        double total = 0;
+        for (double[] bucket : histogram) {
+            total += bucket[1];
+        }
+        double target = Math.max(1, Math.ceil(percentile / 100 * total));
+        double seen = 0;
+        for (double[] bucket : histogram) {
+            seen += bucket[1];
+            if (seen >= target) {
+                return bucket[0];
+            }
+        }
+        return histogram.isEmpty() ? Double.NaN : histogram.get(histogram.size() - 1)[0];
+    }
+
+    private static double latencyScaleToMicros(String scoreUnit) {
+        return nanosOf(scoreUnit.substring(0, scoreUnit.indexOf('/'))) / 1000D;
+    }
+
+    private static double throughputScaleToSeconds(String scoreUnit) {
+        return 1e9 / nanosOf(scoreUnit.substring(scoreUnit.indexOf('/') + 1));
+    }
+
+    private static double nanosOf(String unit) {
+        switch (unit) {
+            case "s":
+                return 1e9;
+            case "ms":
+                return 1e6;
+            case "us":
+                return 1e3;
+            case "ns":
+                return 1;
+            case "min":
+                return 60e9;
+            default:
+                throw new IllegalArgumentException("Unsupported time unit: " + unit);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.benchmark.demo.consumer.compare;
+
+/**
+ * Welch's t-test and the Student t distribution it needs, enough to compare two small sets of fork results.
+ */
+final class Statistics {
+
+    private static final int MAX_ITERATIONS = 300;
+
+    private static final double EPSILON = 1e-14;
+
+    private Statistics() {
+    }
+
+    static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return values.length == 0 ? Double.NaN : sum / values.length;
+    }
+
+    static double variance(double[] values) {
+        if (values.length < 2) {
+            return Double.NaN;
+        }
+        double mean = mean(values);
+        double sum = 0;
+        for (double value : values) {
+            sum += (value - mean) * (value - mean);
+        }
+        return sum / (values.length - 1);
+    }
+
+    /**
+     * Compares the mean of {@code candidate} against the mean of {@code baseline}.
+     *
+     * @return {@code [difference, ciLow, ciHigh, pValue]} of candidate minus baseline, the interval and p value
+     * are NaN when either side has fewer than two observations
+     */
+    static double[] welch(double[] baseline, double[] candidate, double confidence) {
+        double difference = mean(candidate) - mean(baseline);
+        if (baseline.length < 2 || candidate.length < 2) {
+            return new double[]{difference, Double.NaN, Double.NaN, Double.NaN};
+        }
+        double vb = variance(baseline) / baseline.length;
+        double vc = variance(candidate) / candidate.length;
+        double se = Math.sqrt(vb + vc);
+        if (se == 0) {
+            double p = difference == 0 ? 1 : 0;
+            return new double[]{difference, difference, difference, p};
+        }
+        double df = (vb + vc) * (vb + vc)
+                / (vb * vb / (baseline.length - 1) + vc * vc / (candidate.length - 1));
+        double t = difference / se;
+        double p = 2 * (1 - studentCdf(Math.abs(t), df));
+        double margin = studentQuantile(1 - (1 - confidence) / 2, df) * se;
+        return new double[]{difference, difference - margin, difference + margin, Math.max(0, Math.min(1, p))};
+    }
+
+    static double studentCdf(double t, double df) {
+        double x = df / (df + t * t);
+        double tail = 0.5 * regularizedBeta(x, df / 2, 0.5);
+        return t >= 0 ? 1 - tail : tail;
+    }
+
+    static double studentQuantile(double probability, double df) {
+        double low = 0;
+        double high = 1;
+        while (studentCdf(high, df) < probability) {
+            high *= 2;
+        }
+        for (int i = 0; i < 200 && high - low > 1e-10; i++) {
+            double middle = (low + high) / 2;
+            if (studentCdf(middle, df) < probability) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    static double regularizedBeta(double x, double a, double b) {
+        if (x <= 0) {
+            return 0;
+        }
+        if (x >= 1) {
+            return 1;
+        }
+        double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x));
+        if (x < (a + 1) / (a + b + 2)) {
+            return front * betaContinuedFraction(x, a, b) / a;
+        }
+        return 1 - front * betaContinuedFraction(1 - x, b, a) / b;
+    }
+
+    private static double betaContinuedFraction(double x, double a, double b) {
+        double qab = a + b;
+        double qap = a + 1;
+        double qam = a - 1;
+        double c = 1;
+        double d = 1 - qab * x / qap;
+        if (Math.abs(d) < Double.MIN_NORMAL) {
+            d = Double.MIN_NORMAL;
+        }
+        d = 1 / d;
+        double h = d;
+        for (int m = 1; m <= MAX_ITERATIONS; m++) {
+            int m2 = 2 * m;
+            double aa = m * (b - m) * x / ((qam + m2) * (a + m2));
+            d = 1 + aa * d;
+            if (Math.abs(d) < Double.MIN_NORMAL) {
+                d = Double.MIN_NORMAL;
+            }
+            c = 1 + aa / c;
+            if (Math.abs(c) < Double.MIN_NORMAL) {
+                c = Double.MIN_NORMAL;
+            }
+            d = 1 / d;
+            h *= d * c;
+            aa = -(a + m) * (qab + m) * x / ((a + m2) * (qap + m2));
+            d = 1 + aa * d;
+            if (Math.abs(d) < Double.MIN_NORMAL) {
+                d = Double.MIN_NORMAL;
+            }
+            c = 1 + aa / c;
+            if (Math.abs(c) < Double.MIN_NORMAL) {
+                c = Double.MIN_NORMAL;
+            }
+            d = 1 / d;
+            double delta = d * c;
+            h *= delta;
+            if (Math.abs(delta - 1) < EPSILON) {
+                break;
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Lanczos approximation of ln(Gamma(x)) for x > 0.
+     */
+    static double logGamma(double x) {
+        double[] coefficients = {76.18009172947146, -86.50532032941677, 24.01409824083091,
+                -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5};
+        double y = x;
+        double tmp = x + 5.5;
+        tmp -= (x + 0.5) * Math.log(tmp);
+        double series = 1.000000000190015;
+        for (double coefficient : coefficients) {
+            series += coefficient / ++y;
+        }
+        return -tmp + Math.log(2.5066282746310005 * series / x);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.benchmark.demo.test;
+
+import org.apache.dubbo.benchmark.demo.DemoService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Common state of the benchmark scenarios.
+ * <p>
+ * Besides the shared reference it tells the stage profiler of the benchmark agent, through system properties,
+ * which scenario is running and whether the current iteration is a measurement one.
+ */
+public abstract class AbstractDemoBenchmark {
+
+    static final String SCENARIO_KEY = "benchmark.scenario";
+
+    static final String PHASE_KEY = "benchmark.profile.phase";
+
+    protected final DemoService service = DemoServiceReference.get();
+
+    @Param({""})
+    protected String time;
+
+    @Param({""})
+    protected String prop;
+
+    @Setup(Level.Trial)
+    public void label(BenchmarkParams params) {
+        StringBuilder scenario = new StringBuilder(params.getBenchmark());
+        List<String> keys = new ArrayList<>(params.getParamsKeys());
+        Collections.sort(keys);
+        for (String key : keys) {
+            if (!"time".equals(key) && !"prop".equals(key)) {
+                scenario.append(':').append(key).append('=').append(params.getParam(key));
+            }
+        }
+        System.setProperty(SCENARIO_KEY, scenario.toString());
+    }
+
+    @Setup(Level.Iteration)
+    public void phase(IterationParams params) {
+        System.setProperty(PHASE_KEY, params.getType() == IterationType.MEASUREMENT ? "measurement" : "warmup");
+    }
+}
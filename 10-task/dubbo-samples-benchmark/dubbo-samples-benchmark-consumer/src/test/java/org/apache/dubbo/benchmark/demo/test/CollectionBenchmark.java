@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.benchmark.demo.test;
+
+import org.apache.dubbo.benchmark.demo.model.User;
+import org.apache.dubbo.benchmark.demo.model.Users;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Lists of user graphs, to see how serialization cost grows with element count.
+ */
+@State(Scope.Benchmark)
+public class CollectionBenchmark extends AbstractDemoBenchmark {
+
+    private List<User> users;
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    @Setup
+    public void setup() {
+        users = Users.list(size);
+    }
+
+    @Benchmark
+    public List<User> listUsers() {
+        return service.listUsers(size);
+    }
+
+    @Benchmark
+    public List<User> echoUsers() {
+        return service.echoUsers(users);
+    }
+}
@@ -17,39 +17,40 @@
 package org.apache.dubbo.benchmark.demo.test;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import org.HdrHistogram.Histogram;
 import org.apache.commons.io.FileUtils;
 import org.apache.dubbo.benchmark.demo.DemoService;
-import org.apache.dubbo.config.ReferenceConfig;
-import org.apache.dubbo.config.RegistryConfig;
-import org.apache.dubbo.config.bootstrap.DubboBootstrap;
-import org.apache.dubbo.config.bootstrap.builders.ReferenceBuilder;
 import org.junit.Test;
 import org.junit.platform.commons.util.StringUtils;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Mode;
-import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.results.format.ResultFormatType;
 import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
 import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.Charset;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Base64;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 public class ConsumerIT {
 
@@ -78,17 +79,55 @@ public class ConsumerIT {
             prop = String.join("_", propList);
         }
 
-        String sampleFileName = runSample(propJson, prop);
+        File profileDir = Files.createTempDirectory("jmh_profile").toFile();
 
-        dotTrace(prop, propKey, propJson);
+        String sampleFileName = runSample(propJson, prop, profileDir);
+
+        dotTrace(prop, propKey, propJson, profileDir);
 
         String throughputFileName = runThroughput(propJson);
 
-        mergeResult(sampleFileName, throughputFileName);
+        List<?> results = mergeResult(sampleFileName, throughputFileName);
+
+        runAgentOverhead(prop, propKey, propJson);
+
+        writeLatencyReport(sampleFileName, results);
 
     }
 
-    private static void mergeResult(String sampleFileName, String throughputFileName) throws IOException {
+    /**
+     * Writes the percentile report next to the JMH result, the closed loop JMH samples are followed
+     * by fixed-rate open loop runs of the async scenarios.
+     */
+    private static void writeLatencyReport(String sampleFileName, List<?> results) throws Exception {
+        LatencyReport report = new LatencyReport();
+        report.addJmhSampleResults(results);
+
+        DemoService service = DemoServiceReference.get();
+        int rate = Integer.getInteger("benchmark.openloop.rate", 2000);
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(rate,
+                Integer.getInteger("benchmark.openloop.warmup.seconds", 5),
+                Integer.getInteger("benchmark.openloop.seconds", 30), TimeUnit.SECONDS);
+
+        Map<String, Supplier<CompletableFuture<?>>> scenarios = new LinkedHashMap<>();
+        for (String tier : new String[]{Payloads.TINY, Payloads.ONE_KB, Payloads.SIXTY_FOUR_KB}) {
+            String payload = Payloads.of(tier);
+            scenarios.put("echoAsync:payloadSize=" + tier, () -> service.echoAsync(payload));
+        }
+        scenarios.put("getUserAsync", () -> service.getUserAsync(1));
+
+        for (Map.Entry<String, Supplier<CompletableFuture<?>>> scenario : scenarios.entrySet()) {
+            AtomicLong errors = new AtomicLong();
+            Histogram histogram = generator.run(scenario.getValue(), errors);
+            report.add("OpenLoop." + scenario.getKey() + ":rate=" + rate, "open", histogram, errors.get());
+        }
+
+        String reportFileName = sampleFileName.substring(0, sampleFileName.length() - ".json".length()) + "_latency.tsv";
+        report.write(new File(reportFileName));
+        report.write(System.out);
+    }
+
+    private static List<?> mergeResult(String sampleFileName, String throughputFileName) throws IOException {
         String sampleResultJson = FileUtils.readFileToString(new File(sampleFileName), "UTF-8");
         String throughputResultJson = FileUtils.readFileToString(new File(throughputFileName), "UTF-8");
 
@@ -100,9 +139,10 @@ public class ConsumerIT {
 
         String mergedResultJson = gson.toJson(firstResults);
         FileUtils.writeStringToFile(new File(sampleFileName), mergedResultJson, "UTF-8");
+        return firstResults;
     }
 
-    private String runSample(String propJson, String prop) throws Exception {
+    private String runSample(String propJson, String prop, File profileDir) throws Exception {
         String fileName;
         if (StringUtils.isNotBlank(prop)) {
             fileName = "/tmp/jmh_result_prop[" + prop + "]_" + UUID.randomUUID() + ".json";
@@ -110,15 +150,9 @@ public class ConsumerIT {
             fileName = "/tmp/jmh_result_" + UUID.randomUUID() + ".json";
         }
 
-        Options options = new OptionsBuilder()
-                .include(MyBenchmark.class.getSimpleName())
-                .param("time", System.currentTimeMillis() + "")
-                .param("prop", propJson == null ? "" : propJson)
-                .resultFormat(ResultFormatType.JSON)
+        Options options = benchmarkOptions(propJson, "-Dbenchmark.profile.dir=" + profileDir.getAbsolutePath())
                 .result(fileName)
                 .mode(Mode.SampleTime)
-                .threads(32)
-                .forks(1)
                 .build();
 
         new Runner(options).run();
@@ -129,16 +163,10 @@ public class ConsumerIT {
     private static String runThroughput(String propJson) throws Exception {
         String fileName = "/tmp/" + UUID.randomUUID() + ".json";
 
-        Options options = new OptionsBuilder()
-                .include(MyBenchmark.class.getSimpleName())
-                .param("time", System.currentTimeMillis() + "")
-                .param("prop", propJson == null ? "" : propJson)
-                .resultFormat(ResultFormatType.JSON)
+        Options options = benchmarkOptions(propJson)
                 .result(fileName)
                 .jvmArgs("-Dzookeeper.address=zookeeper")
                 .mode(Mode.Throughput)
-                .threads(32)
-                .forks(1)
                 .build();
 
         new Runner(options).run();
@@ -146,47 +174,106 @@ public class ConsumerIT {
         return fileName;
     }
 
-    private static void dotTrace(String prop, String propKey, String propJson) {
-        String url = "jdbc:mysql://bh-mysql:3306/skywalking?useSSL=false";
-        String user = "root";
-        String password = "123456";
-
-        Connection connection = null;
-        PreparedStatement statement = null;
-        ResultSet resultSet = null;
-        String dataBinary = null;
-
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            connection = DriverManager.getConnection(url, user, password);
-
-            String setOffsetSql = "SELECT FLOOR(COUNT(*) * 0.01) FROM segment";
-            statement = connection.prepareStatement(setOffsetSql);
-            resultSet = statement.executeQuery();
+    /**
+     * Every scenario of the suite shares the same run shape, iterations are kept short so that
+     * all payload tiers fit into the case timeout and can be tuned with system properties.
+     */
+    private static ChainedOptionsBuilder benchmarkOptions(String propJson, String... jvmArgs) {
+        return runOptions(propJson, jvmArgs)
+                .include(MyBenchmark.class.getSimpleName())
+                .include(PayloadBenchmark.class.getSimpleName())
+                .include(PojoBenchmark.class.getSimpleName())
+                .include(CollectionBenchmark.class.getSimpleName());
+    }
 
-            if (resultSet.next()) {
-                int offset = resultSet.getInt(1);
-                System.out.println("offset:" + offset);
+    private static ChainedOptionsBuilder runOptions(String propJson, String... jvmArgs) {
+        return new OptionsBuilder()
+                .param("time", System.currentTimeMillis() + "")
+                .param("prop", propJson == null ? "" : propJson)
+                .resultFormat(ResultFormatType.JSON)
+                .warmupIterations(Integer.getInteger("benchmark.warmup.iterations", 2))
+                .warmupTime(TimeValue.seconds(Integer.getInteger("benchmark.warmup.seconds", 5)))
+                .measurementIterations(Integer.getInteger("benchmark.measurement.iterations", 2))
+                .measurementTime(TimeValue.seconds(Integer.getInteger("benchmark.measurement.seconds", 5)))
+                .threads(Integer.getInteger("benchmark.threads", 32))
+                .forks(Integer.getInteger("benchmark.forks", 1))
+                .jvmArgsAppend(forkedSystemProperties(jvmArgs));
+    }
 
-                String querySql = "SELECT data_binary FROM segment ORDER BY latency DESC LIMIT 1 OFFSET ?";
-                statement = connection.prepareStatement(querySql);
-                statement.setInt(1, offset);
-                resultSet = statement.executeQuery();
+    /**
+     * System properties the forked benchmark JVM needs to reach or start the provider the same way as this one.
+     */
+    private static String[] forkedSystemProperties(String... jvmArgs) {
+        List<String> args = new ArrayList<>(Arrays.asList(jvmArgs));
+        for (String key : new String[]{DemoServiceReference.MODE_KEY, "dubbo.protocol.name", "dubbo.protocol.serialization",
+                "benchmark.profile.sample.rate", "benchmark.profile.stages"}) {
+            String value = System.getProperty(key);
+            if (StringUtils.isNotBlank(value)) {
+                args.add("-D" + key + "=" + value);
+            }
+        }
+        return args.toArray(new String[0]);
+    }
 
-                if (resultSet.next()) {
-                    dataBinary = resultSet.getString("data_binary");
-                    System.out.println(dataBinary);
-                }
+    /**
+     * Measures the throughput of {@link MyBenchmark} in forks with and without the -javaagent of this JVM, the
+     * agent runs with the profiler enabled and the configured sampling, and writes the relative overhead.
+     */
+    private static void runAgentOverhead(String prop, String propKey, String propJson) throws Exception {
+        List<String> instrumentedArgs = ManagementFactory.getRuntimeMXBean().getInputArguments();
+        List<String> plainArgs = new ArrayList<>();
+        for (String arg : instrumentedArgs) {
+            if (!arg.startsWith("-javaagent")) {
+                plainArgs.add(arg);
             }
+        }
+        if (plainArgs.size() == instrumentedArgs.size()) {
+            System.out.println("No -javaagent on this JVM, skip the agent overhead benchmark");
+            return;
+        }
 
-            Class<?> segmentObjectClass = Class.forName("org.apache.skywalking.apm.network.language.agent.v3.SegmentObject");
+        File profileDir = Files.createTempDirectory("jmh_overhead_profile").toFile();
+        double instrumented = overheadThroughput(propJson, instrumentedArgs,
+                "-Dbenchmark.profile.dir=" + profileDir.getAbsolutePath());
+        double plain = overheadThroughput(propJson, plainArgs);
+
+        Map<String, Object> overhead = new LinkedHashMap<>();
+        overhead.put("benchmark", MyBenchmark.class.getName() + ".getUser");
+        overhead.put("unit", "ops/s");
+        overhead.put("instrumented", instrumented);
+        overhead.put("uninstrumented", plain);
+        overhead.put("overheadPercent", plain == 0 ? 0 : (plain - instrumented) * 100 / plain);
+        overhead.put("sampleRate", System.getProperty("benchmark.profile.sample.rate", "1"));
+        overhead.put("stages", System.getProperty("benchmark.profile.stages", "all"));
+        if (StringUtils.isNotBlank(propJson)) {
+            overhead.put(propKey, propJson);
+        }
 
-            Object segmentObject = new Object();
-            if (StringUtils.isNotBlank(dataBinary)) {
-                byte[] bytes = Base64.getDecoder().decode(dataBinary);
-                segmentObject = segmentObjectClass.getDeclaredMethod("parseFrom", byte[].class).invoke(null, bytes);
-            }
+        String overheadFileName;
+        if (StringUtils.isNotBlank(prop)) {
+            overheadFileName = "/tmp/jmh_agent_overhead_prop[" + prop + "].json";
+        } else {
+            overheadFileName = "/tmp/jmh_agent_overhead.json";
+        }
+        String overheadJson = new Gson().toJson(overhead);
+        FileUtils.write(new File(overheadFileName), overheadJson, Charset.defaultCharset(), false);
+        System.out.println("Agent overhead: " + overheadJson);
+    }
+
+    private static double overheadThroughput(String propJson, List<String> jvmArgs, String... jvmArgsAppend) throws Exception {
+        Options options = runOptions(propJson, jvmArgsAppend)
+                .include(MyBenchmark.class.getSimpleName())
+                .jvmArgs(jvmArgs.toArray(new String[0]))
+                .mode(Mode.Throughput)
+                .build();
+        return new Runner(options).runSingle().getPrimaryResult().getScore();
+    }
 
+    /**
+     * Collects the per stage latency histograms the benchmark agent wrote in every forked JVM of the sample run.
+     */
+    private static void dotTrace(String prop, String propKey, String propJson, File profileDir) {
+        try {
             String traceFileName;
             if (StringUtils.isNotBlank(prop)) {
                 traceFileName = "/tmp/jmh_trace_prop[" + prop + "].json";
@@ -194,64 +281,29 @@ public class ConsumerIT {
                 traceFileName = "/tmp/jmh_trace.json";
             }
 
-            String traceJson;
             Gson gson = new Gson();
-            if (StringUtils.isNotBlank(propJson)) {
-                JsonElement jsonElement = gson.toJsonTree(segmentObject);
-                jsonElement.getAsJsonObject().addProperty(propKey, propJson);
-                traceJson = gson.toJson(jsonElement);
-            } else {
-                traceJson = gson.toJson(segmentObject);
+            JsonArray profiles = new JsonArray();
+            File[] files = profileDir.listFiles((dir, name) -> name.endsWith(".json"));
+            if (files != null) {
+                Arrays.sort(files);
+                for (File file : files) {
+                    JsonElement jsonElement = gson.fromJson(FileUtils.readFileToString(file, "UTF-8"), JsonElement.class);
+                    if (StringUtils.isNotBlank(propJson)) {
+                        jsonElement.getAsJsonObject().addProperty(propKey, propJson);
+                    }
+                    profiles.add(jsonElement);
+                }
             }
 
-            traceJson = "[" + traceJson + "]";
-
-            FileUtils.write(new File(traceFileName), traceJson, Charset.defaultCharset(), false);
-
+            FileUtils.write(new File(traceFileName), gson.toJson(profiles), Charset.defaultCharset(), false);
         } catch (Exception e) {
             e.printStackTrace();
             System.out.println("dotTrace error");
-        } finally {
-            try {
-                if (resultSet != null) {
-                    resultSet.close();
-                }
-                if (statement != null) {
-                    statement.close();
-                }
-                if (connection != null) {
-                    connection.close();
-                }
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
         }
-
     }
 
     @State(Scope.Benchmark)
-    public static class MyBenchmark {
-
-        private final DemoService service;
-
-        public MyBenchmark() {
-            String zkAddr = System.getProperty("zookeeper.address", "127.0.0.1");
-            ReferenceConfig<DemoService> reference =
-                    ReferenceBuilder.<DemoService>newBuilder()
-                            .interfaceClass(DemoService.class)
-                            .addRegistry(new RegistryConfig("zookeeper://" + zkAddr + ":2181"))
-                            .build();
-            DubboBootstrap bootstrap = DubboBootstrap.getInstance();
-            bootstrap.application("dubbo-benchmark-consumer");
-            bootstrap.reference(reference).start();
-            service = reference.get();
-        }
-
-        @Param({""})
-        private String time;
-
-        @Param({""})
-        private String prop;
+    public static class MyBenchmark extends AbstractDemoBenchmark {
 
         @Benchmark
         public String getUser() {
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.benchmark.demo.test;
+
+import org.apache.dubbo.benchmark.demo.DemoService;
+import org.apache.dubbo.benchmark.demo.provider.DemoServiceImpl;
+import org.apache.dubbo.common.utils.NetUtils;
+import org.apache.dubbo.config.ProtocolConfig;
+import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.config.RegistryConfig;
+import org.apache.dubbo.config.ServiceConfig;
+import org.apache.dubbo.config.bootstrap.DubboBootstrap;
+import org.apache.dubbo.config.bootstrap.builders.MethodBuilder;
+import org.apache.dubbo.config.bootstrap.builders.ReferenceBuilder;
+import org.apache.dubbo.config.bootstrap.builders.ServiceBuilder;
+
+import static org.apache.dubbo.common.constants.CommonConstants.LOCALHOST_VALUE;
+
+/**
+ * Holds the single {@link DemoService} reference shared by all benchmark states of a JMH fork.
+ * <p>
+ * By default the reference is discovered through ZooKeeper, as deployed by case-configuration.yml.
+ * With {@code -Dbenchmark.mode=embedded} the fork exports {@link DemoServiceImpl} itself on a loopback
+ * port and connects to it with a direct url, so no registry, provider container or tracing backend is needed.
+ */
+public final class DemoServiceReference {
+
+    public static final String MODE_KEY = "benchmark.mode";
+
+    public static final String EMBEDDED = "embedded";
+
+    private static volatile DemoService service;
+
+    private DemoServiceReference() {
+    }
+
+    public static boolean isEmbedded() {
+        return EMBEDDED.equals(System.getProperty(MODE_KEY));
+    }
+
+    public static DemoService get() {
+        if (service == null) {
+            synchronized (DemoServiceReference.class) {
+                if (service == null) {
+                    service = isEmbedded() ? createEmbedded() : create();
+                }
+            }
+        }
+        return service;
+    }
+
+    private static DemoService create() {
+        String zkAddr = System.getProperty("zookeeper.address", "127.0.0.1");
+        ReferenceConfig<DemoService> reference = newReference()
+                .addRegistry(new RegistryConfig("zookeeper://" + zkAddr + ":2181"))
+                .build();
+        DubboBootstrap bootstrap = DubboBootstrap.getInstance();
+        bootstrap.application("dubbo-benchmark-consumer");
+        bootstrap.reference(reference).start();
+        return reference.get();
+    }
+
+    private static DemoService createEmbedded() {
+        String protocolName = System.getProperty("dubbo.protocol.name", "dubbo");
+        int port = NetUtils.getAvailablePort();
+
+        ProtocolConfig protocol = new ProtocolConfig(protocolName, port);
+        protocol.setHost(LOCALHOST_VALUE);
+
+        ServiceConfig<DemoService> demoService = ServiceBuilder.<DemoService>newBuilder()
+                .interfaceClass(DemoService.class)
+                .ref(new DemoServiceImpl())
+                .build();
+        ReferenceConfig<DemoService> reference = newReference()
+                .url(protocolName + "://" + LOCALHOST_VALUE + ":" + port)
+                .build();
+
+        DubboBootstrap bootstrap = DubboBootstrap.getInstance();
+        bootstrap.application("dubbo-benchmark-embedded")
+                .registry(new RegistryConfig(RegistryConfig.NO_AVAILABLE))
+                .protocol(protocol)
+                .service(demoService)
+                .reference(reference)
+                .start();
+        return reference.get();
+    }
+
+    private static ReferenceBuilder<DemoService> newReference() {
+        return ReferenceBuilder.<DemoService>newBuilder()
+                .interfaceClass(DemoService.class)
+                // return=false turns the call into a oneway request
+                .addMethod(MethodBuilder.newBuilder().name("fireAndForget").isReturn(false).build());
+    }
+}
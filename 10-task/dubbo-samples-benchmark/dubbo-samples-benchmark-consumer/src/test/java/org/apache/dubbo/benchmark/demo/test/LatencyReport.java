@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.benchmark.demo.test;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Percentile report of benchmark latencies backed by HdrHistogram.
+ * <p>
+ * Rows are sorted by scenario name and values are printed with a fixed precision, so the reports of two runs
+ * can be compared with a plain diff. Latencies are in microseconds.
+ */
+public class LatencyReport {
+
+    static final String HEADER = "# scenario\tloop\tcount\terrors\tp50\tp90\tp99\tp99.9\tp99.99\tmax";
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final Map<String, Row> rows = new TreeMap<>();
+
+    public void add(String scenario, String loop, Histogram histogram, long errors) {
+        rows.put(scenario + "\t" + loop, new Row(histogram, errors));
+    }
+
+    /**
+     * Converts the raw sample histograms of JMH {@code SampleTime} results into HdrHistograms.
+     * <p>
+     * The samples are reported as measured. JMH threads run a closed loop and a thread stuck in a slow call does
+     * not issue the calls it would otherwise have made, but the samples carry no intended start times to correct
+     * this coordinated omission with, guessing an interval would make up latencies. Only the {@code open} rows,
+     * timed from their scheduled start by {@link OpenLoopLoadGenerator}, include the queueing delay.
+     */
+    @SuppressWarnings("unchecked")
+    public void addJmhSampleResults(List<?> results) {
+        for (Object result : results) {
+            Map<String, Object> benchmark = (Map<String, Object>) result;
+            if (!"sample".equals(benchmark.get("mode"))) {
+                continue;
+            }
+            Map<String, Object> metric = (Map<String, Object>) benchmark.get("primaryMetric");
+            long unitNanos = unitNanos((String) metric.get("scoreUnit"));
+            List<List<List<List<Number>>>> forks = (List<List<List<List<Number>>>>) metric.get("rawDataHistogram");
+            if (forks == null) {
+                continue;
+            }
+
+            Histogram histogram = new Histogram(3);
+            for (List<List<List<Number>>> iterations : forks) {
+                for (List<List<Number>> iteration : iterations) {
+                    for (List<Number> bucket : iteration) {
+                        long value = Math.max(1, Math.round(bucket.get(0).doubleValue() * unitNanos));
+                        histogram.recordValueWithCount(value, bucket.get(1).longValue());
+                    }
+                }
+            }
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            add(scenarioName(benchmark), "closed", histogram, 0);
+        }
+    }
+
+    public void write(File file) throws IOException {
+        try (PrintStream out = new PrintStream(file, StandardCharsets.UTF_8.name())) {
+            write(out);
+        }
+    }
+
+    public void write(PrintStream out) {
+        out.println(HEADER);
+        for (Map.Entry<String, Row> entry : rows.entrySet()) {
+            Histogram histogram = entry.getValue().histogram;
+            StringBuilder line = new StringBuilder(entry.getKey())
+                    .append('\t').append(histogram.getTotalCount())
+                    .append('\t').append(entry.getValue().errors);
+            for (double percentile : PERCENTILES) {
+                line.append('\t').append(micros(histogram.getValueAtPercentile(percentile)));
+            }
+            line.append('\t').append(micros(histogram.getMaxValue()));
+            out.println(line);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String scenarioName(Map<String, Object> benchmark) {
+        StringBuilder name = new StringBuilder((String) benchmark.get("benchmark"));
+        Map<String, Object> params = (Map<String, Object>) benchmark.get("params");
+        if (params != null) {
+            // time and prop only label the run, they are not part of the scenario
+            new TreeMap<>(params).forEach((key, value) -> {
+                if (!"time".equals(key) && !"prop".equals(key)) {
+                    name.append(':').append(key).append('=').append(value);
+                }
+            });
+        }
+        return name.toString();
+    }
+
+    private static long unitNanos(String scoreUnit) {
+        String unit = scoreUnit.substring(0, scoreUnit.indexOf('/'));
+        switch (unit) {
+            case "s":
+                return TimeUnit.SECONDS.toNanos(1);
+            case "ms":
+                return TimeUnit.MILLISECONDS.toNanos(1);
+            case "us":
+                return TimeUnit.MICROSECONDS.toNanos(1);
+            case "ns":
+                return 1;
+            default:
+                throw new IllegalArgumentException("Unsupported score unit: " + scoreUnit);
+        }
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1000D);
+    }
+
+    private static class Row {
+
+        private final Histogram histogram;
+
+        private final long errors;
+
+        Row(Histogram histogram, long errors) {
+            this.histogram = histogram;
+            this.errors = errors;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.benchmark.demo.test;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Fixed-rate load generator. Requests are issued on a fixed schedule regardless of how long earlier requests
+ * take, and each latency is measured from the time the request was scheduled to start rather than the time it
+ * was actually sent. Queueing delay caused by a slow provider is therefore part of the result, which a closed
+ * loop of blocking threads would hide.
+ */
+public class OpenLoopLoadGenerator {
+
+    private final long intervalNanos;
+
+    private final long warmupNanos;
+
+    private final long durationNanos;
+
+    public OpenLoopLoadGenerator(int ratePerSecond, long warmup, long duration, TimeUnit unit) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("rate must be positive: " + ratePerSecond);
+        }
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        this.warmupNanos = unit.toNanos(warmup);
+        this.durationNanos = unit.toNanos(duration);
+    }
+
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * Drives the call at the configured rate and returns the latency histogram in nanoseconds of the requests
+     * scheduled after the warmup period. Failed requests and those still outstanding 30 seconds after the last one
+     * was scheduled are counted in {@code errors} and not recorded, warmup requests are never counted.
+     */
+    public Histogram run(Supplier<CompletableFuture<?>> call, AtomicLong errors) throws InterruptedException {
+        Recorder recorder = new Recorder(3);
+        // measured requests in flight, set negative once the run gives up on them so late completions are ignored
+        AtomicLong outstanding = new AtomicLong();
+
+        long start = System.nanoTime();
+        long measureStart = start + warmupNanos;
+        long end = measureStart + durationNanos;
+
+        recorder.getIntervalHistogram();
+        for (long intended = start; intended < end; intended += intervalNanos) {
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            if (intended < measureStart) {
+                try {
+                    call.get();
+                } catch (RuntimeException e) {
+                    // warmup failures are not counted
+                }
+                continue;
+            }
+            long scheduled = intended;
+            outstanding.incrementAndGet();
+            try {
+                call.get().whenComplete((r, t) -> {
+                    if (outstanding.getAndDecrement() <= 0) {
+                        return;
+                    }
+                    if (t == null) {
+                        recorder.recordValue(System.nanoTime() - scheduled);
+                    } else {
+                        errors.incrementAndGet();
+                    }
+                });
+            } catch (RuntimeException e) {
+                outstanding.decrementAndGet();
+                errors.incrementAndGet();
+            }
+        }
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        errors.addAndGet(outstanding.getAndSet(Long.MIN_VALUE / 2));
+        return recorder.getIntervalHistogram();
+    }
+}
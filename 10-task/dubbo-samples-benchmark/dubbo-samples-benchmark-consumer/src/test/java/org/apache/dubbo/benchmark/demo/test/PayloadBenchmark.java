@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.benchmark.demo.test;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * String payloads of growing size, invoked synchronously, asynchronously and oneway.
+ */
+@State(Scope.Benchmark)
+public class PayloadBenchmark extends AbstractDemoBenchmark {
+
+    private String payload;
+
+    @Param({Payloads.TINY, Payloads.ONE_KB, Payloads.SIXTY_FOUR_KB, Payloads.ONE_MB})
+    private String payloadSize;
+
+    @Setup
+    public void setup() {
+        payload = Payloads.of(payloadSize);
+    }
+
+    @Benchmark
+    public String echo() {
+        return service.echo(payload);
+    }
+
+    @Benchmark
+    public String echoAsync() throws Exception {
+        return service.echoAsync(payload).get();
+    }
+
+    @Benchmark
+    public void oneway() {
+        service.fireAndForget(payload);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.benchmark.demo.test;
+
+import java.util.Arrays;
+
+/**
+ * Payload size tiers used by {@link PayloadBenchmark}.
+ */
+public final class Payloads {
+
+    public static final String TINY = "tiny";
+
+    public static final String ONE_KB = "1kb";
+
+    public static final String SIXTY_FOUR_KB = "64kb";
+
+    public static final String ONE_MB = "1mb";
+
+    private Payloads() {
+    }
+
+    public static String of(String tier) {
+        switch (tier) {
+            case TINY:
+                return "dubbo";
+            case ONE_KB:
+                return repeat(1024);
+            case SIXTY_FOUR_KB:
+                return repeat(64 * 1024);
+            case ONE_MB:
+                return repeat(1024 * 1024);
+            default:
+                throw new IllegalArgumentException("Unknown payload tier: " + tier);
+        }
+    }
+
+    private static String repeat(int length) {
+        char[] chars = new char[length];
+        Arrays.fill(chars, 'd');
+        return new String(chars);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.benchmark.demo.test;
+
+import org.apache.dubbo.benchmark.demo.model.User;
+import org.apache.dubbo.benchmark.demo.model.Users;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A nested user graph sent as request, returned as response, and fetched asynchronously.
+ */
+@State(Scope.Benchmark)
+public class PojoBenchmark extends AbstractDemoBenchmark {
+
+    private User user;
+
+    @Setup
+    public void setup() {
+        user = Users.create(1);
+    }
+
+    @Benchmark
+    public User getUser() {
+        return service.getUser(1);
+    }
+
+    @Benchmark
+    public User echoUser() {
+        return service.echoUser(user);
+    }
+
+    @Benchmark
+    public User getUserAsync() throws Exception {
+        return service.getUserAsync(1).get();
+    }
+}
@@ -16,7 +16,34 @@
  */
 package org.apache.dubbo.benchmark.demo;
 
+import org.apache.dubbo.benchmark.demo.model.User;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface DemoService {
 
     String sayHello(String name);
+
+    /**
+     * Returns the payload unchanged, used to measure latency against payload size.
+     */
+    String echo(String payload);
+
+    CompletableFuture<String> echoAsync(String payload);
+
+    /**
+     * Invoked as a oneway call by the benchmark consumer, the provider never replies.
+     */
+    void fireAndForget(String payload);
+
+    User getUser(long id);
+
+    User echoUser(User user);
+
+    CompletableFuture<User> getUserAsync(long id);
+
+    List<User> listUsers(int size);
+
+    List<User> echoUsers(List<User> users);
 }
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.benchmark.demo.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds deterministic user graphs shared by the benchmark provider and consumer.
+ */
+public final class Users {
+
+    private Users() {
+    }
+
+    public static User create(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setName("dubbo-user-" + id);
+        user.setEmail("user" + id + "@dubbo.apache.org");
+        user.setAge((int) (18 + id % 50));
+        user.setVip(id % 3 == 0);
+        user.setBalance(id * 1.25D);
+        user.setCreateTime(new Date(1700000000000L + id));
+        user.setAddress(new Address("CN", "Hangzhou", "Wenyi West Road " + id, 310000));
+
+        List<Address> history = new ArrayList<>(3);
+        for (int i = 0; i < 3; i++) {
+            history.add(new Address("CN", "Beijing", "Chang'an Avenue " + i, 100000 + i));
+        }
+        user.setHistoryAddresses(history);
+        user.setTags(Arrays.asList("benchmark", "rpc", "serialization"));
+
+        Map<String, String> attributes = new HashMap<>(4);
+        attributes.put("level", String.valueOf(id % 10));
+        attributes.put("source", "jmh");
+        user.setAttributes(attributes);
+        return user;
+    }
+
+    public static List<User> list(int size) {
+        List<User> users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            users.add(create(i));
+        }
+        return users;
+    }
+}
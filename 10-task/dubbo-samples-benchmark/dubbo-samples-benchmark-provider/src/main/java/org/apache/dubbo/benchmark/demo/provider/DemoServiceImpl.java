@@ -18,10 +18,15 @@ package org.apache.dubbo.benchmark.demo.provider;
 
 
 import org.apache.dubbo.benchmark.demo.DemoService;
+import org.apache.dubbo.benchmark.demo.model.User;
+import org.apache.dubbo.benchmark.demo.model.Users;
 import org.apache.dubbo.config.annotation.DubboService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @DubboService
 public class DemoServiceImpl implements DemoService {
 
@@ -31,4 +36,43 @@ public class DemoServiceImpl implements DemoService {
     public String sayHello(String name) {
         return "Hello " + name;
     }
+
+    @Override
+    public String echo(String payload) {
+        return payload;
+    }
+
+    @Override
+    public CompletableFuture<String> echoAsync(String payload) {
+        return CompletableFuture.completedFuture(payload);
+    }
+
+    @Override
+    public void fireAndForget(String payload) {
+    }
+
+    @Override
+    public User getUser(long id) {
+        return Users.create(id);
+    }
+
+    @Override
+    public User echoUser(User user) {
+        return user;
+    }
+
+    @Override
+    public CompletableFuture<User> getUserAsync(long id) {
+        return CompletableFuture.completedFuture(Users.create(id));
+    }
+
+    @Override
+    public List<User> listUsers(int size) {
+        return Users.list(size);
+    }
+
+    @Override
+    public List<User> echoUsers(List<User> users) {
+        return users;
+    }
 }
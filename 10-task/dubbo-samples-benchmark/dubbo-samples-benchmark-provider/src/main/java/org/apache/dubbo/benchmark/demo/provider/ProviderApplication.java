@@ -19,13 +19,17 @@ package org.apache.dubbo.benchmark.demo.provider;
 
 
 import org.apache.dubbo.config.spring.context.annotation.EnableDubbo;
-import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
 
 @SpringBootApplication
 @EnableDubbo
 public class ProviderApplication {
     public static void main(String[] args) {
-        SpringApplication.run(ProviderApplication.class, args);
+        // provider.yml instead of application.yml: this jar is on the consumer's test classpath for
+        // the embedded mode, where a second application.yml would shadow the consumer's own
+        new SpringApplicationBuilder(ProviderApplication.class)
+                .properties("spring.config.name=provider")
+                .run(args);
     }
 }
@@ -17,39 +17,122 @@
 package org.apache.dubbo.samples.a;
 
 import org.apache.dubbo.config.annotation.DubboReference;
+import org.apache.dubbo.rpc.RpcContext;
 import org.apache.dubbo.samples.ServiceA;
+import org.apache.dubbo.samples.deadline.DeadlineFilter;
 
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
-public class BenchmarkClient implements CommandLineRunner {
+public class BenchmarkClient implements CommandLineRunner, DisposableBean {
     private static final Logger logger = LoggerFactory.getLogger(BenchmarkClient.class);
 
+    private static final List<String> NAMES = Arrays.asList("John", "Mike", "Kevin", "Grace", "Mark");
+
+    private static final long PERIOD_MILLIS = 1000;
+
     @DubboReference
     private ServiceA serviceA;
 
+    @Value("${benchmark.deadline:500ms}")
+    private Duration deadline;
+
+    @Value("${benchmark.report-interval:10s}")
+    private Duration reportInterval;
+
+    private final Recorder recorder = new Recorder(3);
+
+    private final Histogram total = new Histogram(3);
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private long totalFailures;
+
+    private ScheduledExecutorService executorService;
+
     @Override
     public void run(String... args) {
-        Runnable task = () -> {
-            long startTime = System.currentTimeMillis();
-            List<String> names = Arrays.asList("John", "Mike", "Kevin", "Grace", "Mark");
-            String name = names.get(ThreadLocalRandom.current().nextInt(names.size()));
-            String result = serviceA.sayHello(name) + "Usage Time: " + (System.currentTimeMillis() - startTime) + "ms";
-            logger.info(result);
-        };
-        ScheduledExecutorService executorService = Executors.newScheduledThreadPool(50);
+        executorService = Executors.newScheduledThreadPool(50);
         for (int i = 0; i < 50; i++) {
-            executorService.scheduleAtFixedRate(task, ThreadLocalRandom.current().nextInt(1000), 1000, TimeUnit.MILLISECONDS);
+            long initialDelay = ThreadLocalRandom.current().nextInt(1000);
+            executorService.scheduleAtFixedRate(new Caller(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(initialDelay)),
+                    initialDelay, PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        long interval = reportInterval.toMillis();
+        executorService.scheduleAtFixedRate(this::report, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (executorService == null) {
+            return;
+        }
+        executorService.shutdownNow();
+        report();
+        synchronized (this) {
+            logger.info("serviceA.sayHello total: {} calls, {} failed, p50={}ms p90={}ms p99={}ms max={}ms",
+                    total.getTotalCount(), totalFailures, millis(total.getValueAtPercentile(50)),
+                    millis(total.getValueAtPercentile(90)), millis(total.getValueAtPercentile(99)),
+                    millis(total.getMaxValue()));
+        }
+    }
+
+    private synchronized void report() {
+        Histogram interval = recorder.getIntervalHistogram();
+        long failed = failures.getAndSet(0);
+        total.add(interval);
+        totalFailures += failed;
+        logger.info("serviceA.sayHello: {} calls, {} failed, p50={}ms p90={}ms p99={}ms max={}ms",
+                interval.getTotalCount(), failed, millis(interval.getValueAtPercentile(50)),
+                millis(interval.getValueAtPercentile(90)), millis(interval.getValueAtPercentile(99)),
+                millis(interval.getMaxValue()));
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.1f", micros / 1000.0);
+    }
+
+    /**
+     * One periodic caller. The latency is taken from the time the call was due rather than the time it started, a
+     * caller that fell behind a slow response would otherwise hide the wait from the percentiles.
+     */
+    private final class Caller implements Runnable {
+        private long intendedNanos;
+
+        private Caller(long intendedNanos) {
+            this.intendedNanos = intendedNanos;
+        }
+
+        @Override
+        public void run() {
+            String name = NAMES.get(ThreadLocalRandom.current().nextInt(NAMES.size()));
+            RpcContext.getClientAttachment().setAttachment(DeadlineFilter.DEADLINE_KEY,
+                    String.valueOf(System.currentTimeMillis() + deadline.toMillis()));
+            try {
+                serviceA.sayHello(name);
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+                logger.debug("serviceA.sayHello failed", e);
+            }
+            long latency = System.nanoTime() - intendedNanos;
+            recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(Math.max(latency, 0)));
+            intendedNanos += TimeUnit.MILLISECONDS.toNanos(PERIOD_MILLIS);
         }
     }
 }
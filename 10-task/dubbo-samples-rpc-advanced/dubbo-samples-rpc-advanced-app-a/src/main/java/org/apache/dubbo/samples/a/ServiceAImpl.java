@@ -18,12 +18,20 @@ package org.apache.dubbo.samples.a;
 
 import org.apache.dubbo.config.annotation.DubboReference;
 import org.apache.dubbo.config.annotation.DubboService;
+import org.apache.dubbo.rpc.AsyncContext;
+import org.apache.dubbo.rpc.RpcContext;
 import org.apache.dubbo.samples.ServiceA;
 import org.apache.dubbo.samples.ServiceB;
+import org.apache.dubbo.samples.ServiceC;
 import org.apache.dubbo.samples.ServiceD;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ThreadLocalRandom;
 
 @DubboService
@@ -32,6 +40,9 @@ public class ServiceAImpl implements ServiceA {
     @DubboReference
     private ServiceB serviceB;
 
+    @DubboReference
+    private ServiceC serviceC;
+
     @DubboReference
     private ServiceD serviceD;
 
@@ -47,30 +58,68 @@ public class ServiceAImpl implements ServiceA {
 
     @Override
     public String sayHello(String name) {
+        // the downstream calls are all in flight before the local work starts, the request costs the slowest of
+        // them rather than their sum, and DeadlineFilter hands each of them the remaining budget
+        Reply reply = new Reply();
+        List<CompletableFuture<Void>> calls = new ArrayList<>(3);
+        calls.add(call(reply, "App B", () -> serviceB.sayHello(name)));
+        if (ThreadLocalRandom.current().nextInt(100) < 50) {
+            // 50%
+            calls.add(call(reply, "App C", () -> serviceC.sayHello(name)));
+        }
+        calls.add(call(reply, "App D", () -> serviceD.sayHello(name)));
+
         try {
             Thread.sleep(ThreadLocalRandom.current().nextInt(100));
         } catch (InterruptedException ignore) {
             Thread.currentThread().interrupt();
         }
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append("Hello, ").append(name).append(". ")
-                .append("I am App A from ").append(localHost).append(".\n");
+        String greeting = "Hello, " + name + ". I am App A from " + localHost + ".\n";
 
-        stringBuilder.append("\n");
+        CompletableFuture<Void> all = CompletableFuture.allOf(calls.toArray(new CompletableFuture[0]));
+        if (all.isDone()) {
+            return reply.assemble(greeting);
+        }
+        AsyncContext asyncContext = RpcContext.startAsync();
+        // a failed call is written into the reply as its own section, so the fan-out always completes normally
+        all.thenRun(() -> asyncContext.write(reply.assemble(greeting)));
+        return null;
+    }
 
-        stringBuilder.append("App A ====> App B Start\n");
-        stringBuilder.append(serviceB.sayHello(name));
-        stringBuilder.append("App A ====> App B End\n");
+    private static CompletableFuture<Void> call(Reply reply, String target, Callable<String> callable) {
+        CompletableFuture<String> future;
+        try {
+            future = RpcContext.getContext().asyncCall(callable);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.handle((result, t) -> {
+            reply.add(target, result, t);
+            return null;
+        });
+    }
 
-        if (ThreadLocalRandom.current().nextInt(100) < 50) {
-            // 50%
-            stringBuilder.append("\n");
+    /**
+     * Collects the downstream sections in the order they arrive.
+     */
+    private static final class Reply {
+        private final StringBuilder sections = new StringBuilder();
 
-            stringBuilder.append("App A ====> App C Start\n");
-            stringBuilder.append(serviceB.sayHello(name));
-            stringBuilder.append("App A ====> App C End\n");
+        synchronized void add(String target, String result, Throwable t) {
+            sections.append("\n");
+            if (t != null) {
+                Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                sections.append("App A ====> ").append(target).append(" Failed: ")
+                        .append(cause.getMessage()).append("\n");
+                return;
+            }
+            sections.append("App A ====> ").append(target).append(" Start\n");
+            sections.append(result);
+            sections.append("App A ====> ").append(target).append(" End\n");
         }
 
-        return stringBuilder.toString();
+        synchronized String assemble(String greeting) {
+            return greeting + sections;
+        }
     }
 }
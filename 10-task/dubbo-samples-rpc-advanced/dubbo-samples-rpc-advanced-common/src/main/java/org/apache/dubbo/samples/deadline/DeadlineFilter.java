@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.samples.deadline;
+
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Carries a request deadline across the call chain.
+ * <p>
+ * The deadline is an absolute epoch millisecond timestamp in the {@value #DEADLINE_KEY} attachment. On the provider
+ * side a request whose deadline has already passed (e.g. while it waited in the thread pool) is dropped without
+ * running the service, otherwise the deadline is kept for the calls the service makes itself. On the consumer side
+ * the current deadline is attached to every outgoing call and the call timeout is shortened to the remaining budget,
+ * a call with no budget left fails without being sent.
+ * <p>
+ * Absolute timestamps assume the hosts keep their clocks in sync, which holds well enough inside one cluster.
+ */
+@Activate(group = {CommonConstants.PROVIDER, CommonConstants.CONSUMER})
+public class DeadlineFilter implements Filter {
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineFilter.class);
+
+    public static final String DEADLINE_KEY = "deadline";
+
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    /**
+     * The deadline of the request being served by the current thread, or -1 if it has none.
+     */
+    public static long current() {
+        Long deadline = CURRENT.get();
+        return deadline == null ? -1 : deadline;
+    }
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        if (CommonConstants.CONSUMER_SIDE.equals(invoker.getUrl().getParameter(CommonConstants.SIDE_KEY))) {
+            return propagate(invoker, invocation);
+        }
+        return enforce(invoker, invocation);
+    }
+
+    private Result enforce(Invoker<?> invoker, Invocation invocation) {
+        long deadline = parse(invocation.getObjectAttachment(DEADLINE_KEY));
+        if (deadline < 0) {
+            return invoker.invoke(invocation);
+        }
+        long late = System.currentTimeMillis() - deadline;
+        if (late >= 0) {
+            logger.debug("Dropped {}.{}, its deadline passed {}ms ago", invocation.getServiceName(),
+                    invocation.getMethodName(), late);
+            return expired(invocation);
+        }
+        Long previous = CURRENT.get();
+        CURRENT.set(deadline);
+        try {
+            return invoker.invoke(invocation);
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    private Result propagate(Invoker<?> invoker, Invocation invocation) {
+        long deadline = current();
+        if (deadline < 0) {
+            // the caller may start a deadline of its own through the client attachments
+            deadline = parse(invocation.getObjectAttachment(DEADLINE_KEY));
+            if (deadline < 0) {
+                return invoker.invoke(invocation);
+            }
+        }
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+            return expired(invocation);
+        }
+        invocation.setAttachment(DEADLINE_KEY, String.valueOf(deadline));
+        invocation.setAttachment(CommonConstants.TIMEOUT_KEY, String.valueOf(remaining));
+        return invoker.invoke(invocation);
+    }
+
+    private static Result expired(Invocation invocation) {
+        return AsyncRpcResult.newDefaultAsyncResult(new RpcException(RpcException.TIMEOUT_EXCEPTION,
+                "Deadline exceeded before calling " + invocation.getServiceName() + "."
+                        + invocation.getMethodName()), invocation);
+    }
+
+    private static long parse(Object value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.toString());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
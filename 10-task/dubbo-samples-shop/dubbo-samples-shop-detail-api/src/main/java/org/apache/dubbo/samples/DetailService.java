@@ -20,5 +20,10 @@ public interface DetailService {
 
     Item getItem(long sku, String username);
 
+    /**
+     * Takes {@code count} units in one step.
+     *
+     * @return false when not enough stock is available
+     */
     boolean deductStock(long sku, int count);
 }
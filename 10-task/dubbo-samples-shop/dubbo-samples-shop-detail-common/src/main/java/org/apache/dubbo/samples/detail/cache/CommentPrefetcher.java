@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.samples.detail.cache;
+
+import org.apache.dubbo.config.annotation.DubboReference;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.samples.CommentService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Item comments fetched asynchronously from the comment service and cached per item name.
+ * <p>
+ * Item loads call {@link #prefetch} so the comment is usually there by the time the item is served. Serving waits
+ * at most {@code detail.cache.comment-wait} for a comment still in flight and goes without it otherwise, so the
+ * comment service's tail latency does not become the detail service's.
+ * <p>
+ * Loads and refreshes run on whatever thread the cache picks, not on the request's, so a routing tag cannot come
+ * from the request's attachments. Callers pass it explicitly; the tag is part of the cache key, so comments fetched
+ * from tagged providers are never served to untagged requests or the other way round.
+ */
+@Component
+public class CommentPrefetcher {
+    private static final Logger logger = LoggerFactory.getLogger(CommentPrefetcher.class);
+
+    @DubboReference(check = false)
+    private CommentService commentService;
+
+    @Value("${detail.cache.maximum-size:10000}")
+    private int maximumSize;
+
+    @Value("${detail.cache.refresh-after:30s}")
+    private Duration refreshAfter;
+
+    @Value("${detail.cache.expire-after:5m}")
+    private Duration expireAfter;
+
+    @Value("${detail.cache.comment-wait:20ms}")
+    private Duration commentWait;
+
+    private ReadThroughCache<Key, String> comments;
+
+    @PostConstruct
+    public void init() {
+        comments = new ReadThroughCache<>(maximumSize, refreshAfter, expireAfter,
+                key -> {
+                    if (key.tag != null) {
+                        // set on the thread that issues the call, right before it
+                        RpcContext.getClientAttachment().setAttachment("dubbo.tag", key.tag);
+                    }
+                    return RpcContext.getContext().asyncCall(() -> commentService.getComment(key.itemName));
+                });
+    }
+
+    /**
+     * @param tag the dubbo.tag to route the comment call with, or null for untagged providers
+     */
+    public void prefetch(String itemName, String tag) {
+        comments.get(new Key(itemName, tag));
+    }
+
+    /**
+     * @param tag the dubbo.tag to route the comment call with, or null for untagged providers
+     * @return the comment, or null when it did not arrive in time or could not be fetched
+     */
+    public String get(String itemName, String tag) {
+        CompletableFuture<String> comment = comments.get(new Key(itemName, tag));
+        try {
+            return comment.isDone() ? comment.getNow(null) : comment.get(commentWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (ExecutionException | RuntimeException e) {
+            logger.debug("Failed to fetch comment of {}.", itemName, e);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static final class Key {
+
+        private final String itemName;
+
+        private final String tag;
+
+        private Key(String itemName, String tag) {
+            this.itemName = itemName;
+            this.tag = tag;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return itemName.equals(other.itemName) && Objects.equals(tag, other.tag);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * itemName.hashCode() + Objects.hashCode(tag);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.samples.detail.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Read-through cache over an asynchronous loader.
+ * <p>
+ * Concurrent misses of one key share a single load. An entry older than {@code refreshAfter} is still served
+ * but triggers a background reload, so keys read often enough never expire and never make a caller wait; keys
+ * nobody read for {@code expireAfter} are loaded again on the next read. A failed load is not cached, a failed
+ * refresh keeps serving the previous value until it expires.
+ */
+public class ReadThroughCache<K, V> {
+
+    private final TinyLfuCache<K, Entry<V>> cache;
+
+    private final Map<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+    private final Function<K, CompletableFuture<V>> loader;
+
+    private final long refreshAfterNanos;
+
+    private final long expireAfterNanos;
+
+    public ReadThroughCache(int maximumSize, Duration refreshAfter, Duration expireAfter,
+                            Function<K, CompletableFuture<V>> loader) {
+        if (refreshAfter.compareTo(expireAfter) > 0) {
+            throw new IllegalArgumentException("refreshAfter " + refreshAfter + " exceeds expireAfter " + expireAfter);
+        }
+        this.cache = new TinyLfuCache<>(maximumSize);
+        this.refreshAfterNanos = refreshAfter.toNanos();
+        this.expireAfterNanos = expireAfter.toNanos();
+        this.loader = loader;
+    }
+
+    public CompletableFuture<V> get(K key) {
+        Entry<V> entry = cache.get(key);
+        if (entry != null) {
+            long age = System.nanoTime() - entry.loadedAt;
+            if (age < expireAfterNanos) {
+                if (age >= refreshAfterNanos) {
+                    load(key);
+                }
+                return entry.future;
+            }
+        }
+        return load(key);
+    }
+
+    private CompletableFuture<V> load(K key) {
+        CompletableFuture<V> pending = loading.get(key);
+        if (pending != null) {
+            return pending;
+        }
+        CompletableFuture<V> future = new CompletableFuture<>();
+        pending = loading.putIfAbsent(key, future);
+        if (pending != null) {
+            return pending;
+        }
+
+        CompletableFuture<V> loaded;
+        try {
+            loaded = loader.apply(key);
+        } catch (RuntimeException e) {
+            loaded = new CompletableFuture<>();
+            loaded.completeExceptionally(e);
+        }
+        loaded.whenComplete((value, t) -> {
+            if (t == null && value != null) {
+                // cache before un-registering the load, readers arriving after it finished find the entry
+                cache.put(key, new Entry<>(value, System.nanoTime()));
+            }
+            loading.remove(key, future);
+            if (t != null) {
+                future.completeExceptionally(t);
+            } else {
+                future.complete(value);
+            }
+        });
+        return future;
+    }
+
+    private static final class Entry<V> {
+
+        private final CompletableFuture<V> future;
+
+        private final long loadedAt;
+
+        private Entry(V value, long loadedAt) {
+            this.future = CompletableFuture.completedFuture(value);
+            this.loadedAt = loadedAt;
+        }
+    }
+}
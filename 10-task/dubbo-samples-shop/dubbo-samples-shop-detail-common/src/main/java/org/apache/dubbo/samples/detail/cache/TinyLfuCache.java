@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.samples.detail.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Size bounded map with W-TinyLFU eviction.
+ * <p>
+ * New entries land in a small LRU window. Entries leaving the window compete with the least recently used entry
+ * of the main space's probation segment, and only the one the {@link FrequencySketch} considers more popular
+ * stays, so a burst of one-off keys cannot flush the hot ones. Probation entries hit again move on to the
+ * protected segment.
+ * <p>
+ * Reads are lock free. Recording a read takes the eviction lock only if it is free, under contention the
+ * recency update is skipped, which costs a little accuracy instead of serializing readers.
+ */
+final class TinyLfuCache<K, V> {
+
+    private static final int WINDOW = 0;
+
+    private static final int PROBATION = 1;
+
+    private static final int PROTECTED = 2;
+
+    private final Map<K, Node<K, V>> data = new ConcurrentHashMap<>();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final FrequencySketch sketch;
+
+    private final int maximumSize;
+
+    private final int windowMaximum;
+
+    private final int protectedMaximum;
+
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+
+    private final AccessOrder<K, V> probation = new AccessOrder<>();
+
+    private final AccessOrder<K, V> protectedSegment = new AccessOrder<>();
+
+    TinyLfuCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.protectedMaximum = (maximumSize - windowMaximum) * 4 / 5;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    V get(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (evictionLock.tryLock()) {
+            try {
+                onAccess(node);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    void put(K key, V value) {
+        evictionLock.lock();
+        try {
+            Node<K, V> node = data.get(key);
+            if (node != null) {
+                node.value = value;
+                onAccess(node);
+                return;
+            }
+            node = new Node<>(key, value);
+            data.put(key, node);
+            sketch.increment(key);
+            window.addLast(node);
+            node.segment = WINDOW;
+
+            Node<K, V> candidate = null;
+            if (window.size > windowMaximum) {
+                candidate = window.removeFirst();
+                probation.addLast(candidate);
+                candidate.segment = PROBATION;
+            }
+            while (data.size() > maximumSize) {
+                evict(candidate);
+                candidate = null;
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    int size() {
+        return data.size();
+    }
+
+    private void evict(Node<K, V> candidate) {
+        Node<K, V> victim = probation.first();
+        if (victim == null) {
+            victim = protectedSegment.first() != null ? protectedSegment.first() : window.first();
+        }
+        Node<K, V> evicted = victim;
+        if (candidate != null && candidate != victim
+                && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+            evicted = candidate;
+        }
+        segment(evicted).remove(evicted);
+        data.remove(evicted.key, evicted);
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (node.segment < 0 || data.get(node.key) != node) {
+            // evicted between the lookup and taking the lock
+            return;
+        }
+        sketch.increment(node.key);
+        if (node.segment == PROBATION) {
+            probation.remove(node);
+            protectedSegment.addLast(node);
+            node.segment = PROTECTED;
+            if (protectedSegment.size > protectedMaximum) {
+                Node<K, V> demoted = protectedSegment.removeFirst();
+                probation.addLast(demoted);
+                demoted.segment = PROBATION;
+            }
+        } else {
+            segment(node).moveToLast(node);
+        }
+    }
+
+    private AccessOrder<K, V> segment(Node<K, V> node) {
+        switch (node.segment) {
+            case WINDOW:
+                return window;
+            case PROBATION:
+                return probation;
+            default:
+                return protectedSegment;
+        }
+    }
+
+    private static final class Node<K, V> {
+
+        private final K key;
+
+        private volatile V value;
+
+        private int segment = -1;
+
+        private Node<K, V> prev;
+
+        private Node<K, V> next;
+
+        private Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list, least recently used first.
+     */
+    private static final class AccessOrder<K, V> {
+
+        private Node<K, V> head;
+
+        private Node<K, V> tail;
+
+        private int size;
+
+        Node<K, V> first() {
+            return head;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        Node<K, V> removeFirst() {
+            Node<K, V> node = head;
+            remove(node);
+            return node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.segment = -1;
+            size--;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (node != tail) {
+                int segment = node.segment;
+                remove(node);
+                addLast(node);
+                node.segment = segment;
+            }
+        }
+    }
+}
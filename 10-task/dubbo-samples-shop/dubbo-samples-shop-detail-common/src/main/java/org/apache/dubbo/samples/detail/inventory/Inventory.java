@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.samples.detail.inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory stock per SKU, shared by the detail versions.
+ * <p>
+ * SKUs the inventory has not seen yet start with {@code detail.inventory.initial-stock} units and are topped up
+ * again every {@code detail.inventory.restock-interval}. When {@code detail.inventory.snapshot-file} is set,
+ * changes are written behind in batches every {@code detail.inventory.snapshot-interval} and the snapshot is
+ * loaded on start.
+ */
+@Component
+public class Inventory {
+    private static final Logger logger = LoggerFactory.getLogger(Inventory.class);
+
+    private final Map<Long, StockCounter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Bumped on every change, the snapshot is only rewritten when it moved since the last write.
+     */
+    private final LongAdder changes = new LongAdder();
+
+    private final long initialStock;
+
+    private final int maxSkus;
+
+    private final Path snapshotFile;
+
+    private final ScheduledExecutorService scheduler;
+
+    private long changesWritten;
+
+    public Inventory(@Value("${detail.inventory.initial-stock:100000}") long initialStock,
+                     @Value("${detail.inventory.max-skus:10000}") int maxSkus,
+                     @Value("${detail.inventory.restock-interval:60s}") Duration restockInterval,
+                     @Value("${detail.inventory.snapshot-file:}") String snapshotFile,
+                     @Value("${detail.inventory.snapshot-interval:5s}") Duration snapshotInterval) throws IOException {
+        this.initialStock = initialStock;
+        this.maxSkus = maxSkus;
+        this.snapshotFile = snapshotFile.isEmpty() ? null : Paths.get(snapshotFile);
+        if (this.snapshotFile != null && Files.exists(this.snapshotFile)) {
+            InventorySnapshot.read(this.snapshotFile).forEach((sku, stock) ->
+                    counters.put(sku, new StockCounter(stock[0], stock[1])));
+            logger.info("Loaded stock of {} SKUs from {}.", counters.size(), this.snapshotFile);
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "inventory-housekeeping");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!restockInterval.isZero()) {
+            scheduler.scheduleWithFixedDelay(this::restock,
+                    restockInterval.toMillis(), restockInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        if (this.snapshotFile != null) {
+            scheduler.scheduleWithFixedDelay(this::writeSnapshot,
+                    snapshotInterval.toMillis(), snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public long available(long sku) {
+        StockCounter counter = counters.get(sku);
+        return counter == null ? initialStock : counter.available();
+    }
+
+    /**
+     * @return false when fewer than {@code count} units are available
+     */
+    public boolean deduct(long sku, int count) {
+        checkCount(count);
+        StockCounter counter = counter(sku);
+        if (counter == null || !counter.deduct(count)) {
+            return false;
+        }
+        changes.increment();
+        return true;
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        writeSnapshot();
+    }
+
+    private StockCounter counter(long sku) {
+        StockCounter counter = counters.get(sku);
+        if (counter != null) {
+            return counter;
+        }
+        if (counters.size() >= maxSkus) {
+            logger.warn("Inventory already tracks {} SKUs, refusing stock for new SKU {}.", maxSkus, sku);
+            return null;
+        }
+        return counters.computeIfAbsent(sku, k -> new StockCounter(initialStock, 0));
+    }
+
+    private void restock() {
+        long added = 0;
+        for (StockCounter counter : counters.values()) {
+            added += counter.restock(initialStock);
+        }
+        if (added > 0) {
+            changes.increment();
+        }
+    }
+
+    private synchronized void writeSnapshot() {
+        if (snapshotFile == null) {
+            return;
+        }
+        long current = changes.sum();
+        if (current == changesWritten) {
+            return;
+        }
+        try {
+            InventorySnapshot.write(snapshotFile, counters);
+            changesWritten = current;
+        } catch (IOException e) {
+            logger.warn("Failed to write inventory snapshot {}, retrying with the next batch.", snapshotFile, e);
+        }
+    }
+
+    private static void checkCount(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Stock count must be positive: " + count);
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.samples.detail.inventory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Plain text stock snapshot, one {@code sku available sold} line per SKU.
+ */
+final class InventorySnapshot {
+
+    private static final String HEADER = "# sku available sold";
+
+    private InventorySnapshot() {
+    }
+
+    static Map<Long, long[]> read(Path file) throws IOException {
+        Map<Long, long[]> stock = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length != 3) {
+                    throw new IOException("Malformed inventory snapshot line: " + line);
+                }
+                try {
+                    stock.put(Long.parseLong(fields[0]),
+                            new long[] {Long.parseLong(fields[1]), Long.parseLong(fields[2])});
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed inventory snapshot line: " + line, e);
+                }
+            }
+        }
+        return stock;
+    }
+
+    /**
+     * Writes to a sibling temp file first and moves it over the snapshot, a crash leaves either the old or the
+     * new snapshot but never half of one.
+     */
+    static void write(Path file, Map<Long, StockCounter> counters) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (Map.Entry<Long, StockCounter> entry : counters.entrySet()) {
+                    StockCounter counter = entry.getValue();
+                    writer.write(entry.getKey() + " " + counter.available() + " "
+                            + counter.sold());
+                    writer.newLine();
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.samples.detail.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stock of one SKU. The available units are spread over a few stripes so concurrent orders for the same SKU
+ * mostly decrement different cache lines; a take only locks when no single stripe holds enough, and then
+ * consolidates the stripes and spreads the rest again.
+ */
+final class StockCounter {
+
+    private static final int STRIPES = Integer.highestOneBit(Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * One stripe per 64 byte cache line.
+     */
+    private static final int PAD = 8;
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PAD);
+
+    private final LongAdder sold = new LongAdder();
+
+    StockCounter(long available, long sold) {
+        spread(available);
+        this.sold.add(sold);
+    }
+
+    boolean deduct(int count) {
+        if (!take(count)) {
+            return false;
+        }
+        sold.add(count);
+        return true;
+    }
+
+    /**
+     * Raises the available units back to {@code target}.
+     *
+     * @return the units added
+     */
+    synchronized long restock(long target) {
+        long missing = target - available();
+        if (missing <= 0) {
+            return 0;
+        }
+        spread(missing);
+        return missing;
+    }
+
+    long available() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += cells.get(i * PAD);
+        }
+        return sum;
+    }
+
+    long sold() {
+        return sold.sum();
+    }
+
+    private boolean take(int count) {
+        int home = home();
+        for (int i = 0; i < STRIPES; i++) {
+            int cell = ((home + i) & (STRIPES - 1)) * PAD;
+            long current;
+            while ((current = cells.get(cell)) >= count) {
+                if (cells.compareAndSet(cell, current, current - count)) {
+                    return true;
+                }
+            }
+        }
+        return takeConsolidated(count);
+    }
+
+    private synchronized boolean takeConsolidated(int count) {
+        long total = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            total += cells.getAndSet(i * PAD, 0);
+        }
+        boolean taken = total >= count;
+        spread(taken ? total - count : total);
+        return taken;
+    }
+
+    private void spread(long units) {
+        long share = units / STRIPES;
+        for (int i = 0; i < STRIPES; i++) {
+            cells.getAndAdd(i * PAD, i == 0 ? units - share * (STRIPES - 1) : share);
+        }
+    }
+
+    private static int home() {
+        int h = Thread.currentThread().hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -16,49 +16,79 @@
  */
 package org.apache.dubbo.samples.detail;
 
-import org.apache.dubbo.config.annotation.DubboReference;
 import org.apache.dubbo.config.annotation.DubboService;
 import org.apache.dubbo.rpc.RpcContext;
-import org.apache.dubbo.samples.CommentService;
 import org.apache.dubbo.samples.DetailService;
 import org.apache.dubbo.samples.Item;
+import org.apache.dubbo.samples.detail.cache.CommentPrefetcher;
+import org.apache.dubbo.samples.detail.cache.ReadThroughCache;
+import org.apache.dubbo.samples.detail.inventory.Inventory;
 
-import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 @DubboService
 public class DetailServiceImpl implements DetailService {
 
-    @DubboReference(check = false)
-    private CommentService commentService;
+    @Autowired
+    private CommentPrefetcher comments;
+
+    @Autowired
+    private Inventory inventory;
+
+    @Value("${detail.cache.maximum-size:10000}")
+    private int cacheSize;
+
+    @Value("${detail.cache.refresh-after:30s}")
+    private Duration refreshAfter;
+
+    @Value("${detail.cache.expire-after:5m}")
+    private Duration expireAfter;
+
+    private ReadThroughCache<Long, Item> items;
+
+    @PostConstruct
+    public void init() {
+        items = new ReadThroughCache<>(cacheSize, refreshAfter, expireAfter,
+                sku -> CompletableFuture.completedFuture(loadItem(sku)));
+    }
 
     @Override
     public Item getItem(long sku, String username) {
-        return getItem(sku);
+        return serve(items.get(sku).join());
     }
 
     @Override
     public boolean deductStock(long sku, int count) {
-        try {
-            // Do something that consumes resources
-            for (int i = 0; i < 500; i++) {
-                Math.pow(ThreadLocalRandom.current().nextDouble(10), ThreadLocalRandom.current().nextDouble(5));
-            }
-            Thread.sleep(ThreadLocalRandom.current().nextInt(50));
-        } catch (InterruptedException ignore) {
-            Thread.currentThread().interrupt();
-        }
-        return true;
+        return inventory.deduct(sku, count);
     }
 
-    private Item getItem(long sku) {
+    private Item loadItem(long sku) {
         Item item = new Item();
         item.setSku(sku);
         item.setItemName("itemName");
         item.setDescription("item from detail v1");
-        item.setStock(100);
         item.setPrice(100);
-        item.setComment(commentService.getComment("itemName"));
+        comments.prefetch(item.getItemName(), null);
         return item;
     }
 
+    /**
+     * Cached items are shared, hand out a copy carrying the live stock and the comment if it is ready.
+     */
+    private Item serve(Item cached) {
+        Item item = new Item();
+        item.setSku(cached.getSku());
+        item.setItemName(cached.getItemName());
+        item.setDescription(cached.getDescription());
+        item.setPrice(cached.getPrice());
+        item.setStock((int) Math.min(Integer.MAX_VALUE, inventory.available(cached.getSku())));
+        item.setComment(comments.get(cached.getItemName(), null));
+        return item;
+    }
 }
@@ -16,98 +16,73 @@
  */
 package org.apache.dubbo.samples.frontend;
 
-import org.apache.dubbo.config.annotation.DubboReference;
 import org.apache.dubbo.samples.ShopService;
+import org.apache.dubbo.samples.workload.Operation;
+import org.apache.dubbo.samples.workload.WorkloadEngine;
+import org.apache.dubbo.samples.workload.WorkloadProperties;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 
-public class BenchmarkClient implements CommandLineRunner {
-    private static final Logger logger = LoggerFactory.getLogger(BenchmarkClient.class);
+/**
+ * Runs the {@code workload.*} load profile against {@link ShopService} once the application is up.
+ */
+@Component
+@ConditionalOnProperty(name = "workload.enabled", havingValue = "true")
+@EnableConfigurationProperties(WorkloadProperties.class)
+public class BenchmarkClient implements CommandLineRunner, DisposableBean {
+    private static final List<String> NAMES = Arrays.asList("John", "Mike", "Kevin", "Grace", "Mark");
 
-    @DubboReference
-    private ShopService shopService;
+    private static final List<String> PASSWORDS = Arrays.asList("123456", "654321", "admin", "root", "pwd");
 
-    @Override
-    public void run(String... args) {
-        ExecutorService executorService = Executors.newCachedThreadPool();
+    @Autowired
+    private ShopService shopService;
 
-        // Register (5 Concurrent)
-        for (int i = 0; i < 5; i++) {
-            executorService.submit(() -> {
-                while (true) {
-                    try {
-                        List<String> names = Arrays.asList("John", "Mike", "Kevin", "Grace", "Mark");
-                        String name = names.get(ThreadLocalRandom.current().nextInt(names.size()));
+    @Autowired
+    private WorkloadProperties properties;
 
-                        List<String> passwords = Arrays.asList("123456", "654321", "admin", "root", "pwd");
-                        String password = passwords.get(ThreadLocalRandom.current().nextInt(passwords.size()));
-                        shopService.register(name, password, name, "dev@dubbo.apache.org", "12345678");
-                    } catch (Throwable t) {
-                        logger.error("Running Register Bench Failed.", t);
-                    }
-                }
-            });
-        }
-        logger.info("Start Register Bench with 5 Concurrent.");
+    // items come from a small set of SKUs so concurrent orders contend on the same stock
+    @Value("${workload.skus:16}")
+    private int skus;
 
-        // Login (10 Concurrent)
-        for (int i = 0; i < 10; i++) {
-            executorService.submit(() -> {
-                while (true) {
-                    try {
-                        List<String> names = Arrays.asList("John", "Mike", "Kevin", "Grace", "Mark");
-                        String name = names.get(ThreadLocalRandom.current().nextInt(names.size()));
+    private WorkloadEngine engine;
 
-                        List<String> passwords = Arrays.asList("123456", "654321", "admin", "root", "pwd");
-                        String password = passwords.get(ThreadLocalRandom.current().nextInt(passwords.size()));
-                        shopService.login(name, password);
-                    } catch (Throwable t) {
-                        logger.error("Running Login Bench Failed.", t);
-                    }
-                }
-            });
-        }
-        logger.info("Start Login Bench with 5 Concurrent.");
+    @Override
+    public void run(String... args) {
+        Map<String, Operation> operations = new LinkedHashMap<>();
+        operations.put("register", () -> {
+            String name = pick(NAMES);
+            return shopService.register(name, pick(PASSWORDS), name, "dev@dubbo.apache.org", "12345678");
+        });
+        operations.put("login", () -> shopService.login(pick(NAMES), pick(PASSWORDS)));
+        operations.put("check-item",
+                () -> shopService.checkItem(ThreadLocalRandom.current().nextLong(skus), "dubbo") != null);
+        operations.put("submit-order",
+                () -> shopService.submitOrder(ThreadLocalRandom.current().nextLong(skus), 50, "Test Item", "Desc", "Mike") != null);
 
-        // CreateItem (5 Concurrent)
-        for (int i = 0; i < 5; i++) {
-            executorService.submit(() -> {
-                while (true) {
-                    try {
-                        long sku = ThreadLocalRandom.current().nextLong();
-                        shopService.checkItem(sku, "dubbo");
-                    } catch (Throwable t) {
-                        logger.error("Running CreateItem Bench Failed.", t);
-                    }
-                }
-            });
-        }
-        logger.info("Start CreateItem Bench with 5 Concurrent.");
+        engine = new WorkloadEngine(properties, operations);
+        engine.start();
+    }
 
-        // SubmitOrder (50 Concurrent)
-        for (int i = 0; i < 50; i++) {
-            executorService.submit(() -> {
-                while (true) {
-                    try {
-                        long sku = ThreadLocalRandom.current().nextLong();
-                        shopService.submitOrder(sku, 50, "Test Item", "Desc", "Mike");
-                    } catch (Throwable t) {
-                        logger.error("Running SubmitOrder Bench Failed.", t);
-                    }
-                }
-            });
+    @Override
+    public void destroy() {
+        if (engine != null) {
+            engine.stop();
         }
-        logger.info("Start SubmitOrder Bench with 5 Concurrent.");
+    }
 
-        logger.info("All Bench Client started.");
+    private static String pick(List<String> values) {
+        return values.get(ThreadLocalRandom.current().nextInt(values.size()));
     }
 }
@@ -91,7 +91,7 @@
                     <li>SKU: ${item.sku}</li>
                     <li>Name: ${item.itemName}</li>
                     <li>Description: ${item.description}</li>
-                    <li><label>Comment: ${item.comment}</label></li>
+                    <li><label>Comment: ${item.comment!"No comments yet."}</label></li>
                     <li><label>Price: ${item.price}</label></li>
                 </ul>
 
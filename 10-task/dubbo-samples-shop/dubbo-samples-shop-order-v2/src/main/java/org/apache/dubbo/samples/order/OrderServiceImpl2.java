@@ -23,8 +23,6 @@ import org.apache.dubbo.samples.Order;
 import org.apache.dubbo.samples.OrderDetail;
 import org.apache.dubbo.samples.OrderService;
 
-import java.util.concurrent.ThreadLocalRandom;
-
 @DubboService
 public class OrderServiceImpl2 implements OrderService {
     @DubboReference
@@ -32,8 +30,11 @@ public class OrderServiceImpl2 implements OrderService {
 
     @Override
     public OrderDetail submitOrder(Order order) {
-        // Do something that consumes resources
-        detailService.deductStock(order.getSku(), order.getCount());
+        // one atomic deduction on whichever detail instance the call is routed to, nothing can fail between
+        // taking the stock and confirming the order
+        if (!detailService.deductStock(order.getSku(), order.getCount())) {
+            throw new IllegalStateException("Not enough stock of item " + order.getSku() + " for " + order.getCount());
+        }
 
         OrderDetail orderDetail = new OrderDetail();
         orderDetail.setEnv("v2");
@@ -25,6 +25,7 @@ public class User implements Serializable {
     private String mail;
     private String phone;
     private String env;
+    private String sessionToken;
 
     public String getUsername() {
         return username;
@@ -73,4 +74,12 @@ public class User implements Serializable {
     public void setEnv(String env) {
         this.env = env;
     }
+
+    public String getSessionToken() {
+        return sessionToken;
+    }
+
+    public void setSessionToken(String sessionToken) {
+        this.sessionToken = sessionToken;
+    }
 }
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.samples.user;
+
+import org.apache.dubbo.samples.User;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registered users, keyed by username, and the sessions of recent logins.
+ * <p>
+ * Passwords are only kept as {@link PasswordHasher} hashes. A successful login opens a session that remembers
+ * an HMAC of the credentials under a key that never leaves the process, so logging in again with the same
+ * password within {@code user.session.ttl} is checked with one HMAC instead of a full password hash.
+ */
+@Component
+public class UserAccounts {
+    private static final Logger logger = LoggerFactory.getLogger(UserAccounts.class);
+
+    private static final String HMAC = "HmacSHA256";
+
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+
+    /**
+     * Insertion ordered and guarded by itself. Every session lives for the same ttl and a new login re-inserts the
+     * username, so the head always holds the session that expires first.
+     */
+    private final Map<String, Session> sessions = new LinkedHashMap<>();
+
+    private final PasswordHasher hasher;
+
+    private final int maxUsers;
+
+    private final int maxSessions;
+
+    private final long sessionTtlNanos;
+
+    private final boolean enrollOnFirstLogin;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final SecretKeySpec sessionKey;
+
+    private final ThreadLocal<Mac> macs;
+
+    public UserAccounts(PasswordHasher hasher,
+                        @Value("${user.store.max-users:100000}") int maxUsers,
+                        @Value("${user.session.max-sessions:100000}") int maxSessions,
+                        @Value("${user.session.ttl:30m}") Duration sessionTtl,
+                        @Value("${user.enroll-on-first-login:true}") boolean enrollOnFirstLogin) {
+        this.hasher = hasher;
+        this.maxUsers = maxUsers;
+        this.maxSessions = maxSessions;
+        this.sessionTtlNanos = sessionTtl.toNanos();
+        this.enrollOnFirstLogin = enrollOnFirstLogin;
+        byte[] key = new byte[32];
+        random.nextBytes(key);
+        this.sessionKey = new SecretKeySpec(key, HMAC);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC);
+                mac.init(sessionKey);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(HMAC + " is not available", e);
+            }
+        });
+    }
+
+    /**
+     * @return false when the username is taken or the store is full
+     */
+    public CompletableFuture<Boolean> register(User user) {
+        String username = user.getUsername();
+        checkCredentials(username, user.getPassword());
+        if (accounts.containsKey(username)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (accounts.size() >= maxUsers) {
+            logger.warn("User store is full with {} users, refusing to register {}.", maxUsers, username);
+            return CompletableFuture.completedFuture(false);
+        }
+        return hasher.hash(user.getPassword()).thenApply(hash ->
+                accounts.putIfAbsent(username, new Account(user, hash)) == null);
+    }
+
+    /**
+     * @return the user with a session token, or null when the username or password is wrong
+     */
+    public CompletableFuture<User> login(String username, String password) {
+        checkCredentials(username, password);
+        Account account = accounts.get(username);
+        if (account == null) {
+            if (!enrollOnFirstLogin) {
+                return CompletableFuture.completedFuture(null);
+            }
+            User user = new User();
+            user.setUsername(username);
+            user.setPassword(password);
+            return register(user).thenCompose(registered -> {
+                if (registered) {
+                    return CompletableFuture.completedFuture(
+                            accounts.get(username).toUser(openSession(username, credential(username, password))));
+                }
+                // a concurrent first login with another password may have won the registration, check against it
+                return accounts.containsKey(username) ? login(username, password)
+                        : CompletableFuture.completedFuture(null);
+            });
+        }
+
+        byte[] credential = credential(username, password);
+        Session session;
+        synchronized (sessions) {
+            session = sessions.get(username);
+        }
+        if (session != null && System.nanoTime() - session.expiresAt < 0
+                && MessageDigest.isEqual(session.credential, credential)) {
+            return CompletableFuture.completedFuture(account.toUser(session.token));
+        }
+        return hasher.verify(password, account.passwordHash).thenApply(valid ->
+                valid ? account.toUser(openSession(username, credential)) : null);
+    }
+
+    /**
+     * @return the profile without any credentials, or null for an unknown username
+     */
+    public User profile(String username) {
+        Account account = accounts.get(username);
+        return account == null ? null : account.toUser(null);
+    }
+
+    private String openSession(String username, byte[] credential) {
+        byte[] token = new byte[16];
+        random.nextBytes(token);
+        long now = System.nanoTime();
+        Session session = new Session(credential, Base64.getUrlEncoder().withoutPadding().encodeToString(token),
+                now + sessionTtlNanos);
+        synchronized (sessions) {
+            sessions.remove(username);
+            // expired sessions go first, and only when logins outpace the ttl the ones closest to expiring, whose
+            // users just fall back to a full password check
+            Iterator<Session> eldest = sessions.values().iterator();
+            while (eldest.hasNext()) {
+                Session head = eldest.next();
+                if (sessions.size() < maxSessions && now - head.expiresAt < 0) {
+                    break;
+                }
+                eldest.remove();
+            }
+            sessions.put(username, session);
+        }
+        return session.token;
+    }
+
+    private byte[] credential(String username, String password) {
+        Mac mac = macs.get();
+        mac.update(username.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void checkCredentials(String username, String password) {
+        if (username == null || username.isEmpty() || password == null || password.isEmpty()) {
+            throw new IllegalArgumentException("Username and password must not be empty");
+        }
+    }
+
+    private static final class Account {
+
+        private final String username;
+
+        private final String realName;
+
+        private final String mail;
+
+        private final String phone;
+
+        private final String passwordHash;
+
+        private Account(User user, String passwordHash) {
+            this.username = user.getUsername();
+            this.realName = user.getRealName();
+            this.mail = user.getMail();
+            this.phone = user.getPhone();
+            this.passwordHash = passwordHash;
+        }
+
+        private User toUser(String sessionToken) {
+            User user = new User();
+            user.setUsername(username);
+            user.setRealName(realName);
+            user.setMail(mail);
+            user.setPhone(phone);
+            user.setSessionToken(sessionToken);
+            return user;
+        }
+    }
+
+    private static final class Session {
+
+        private final byte[] credential;
+
+        private final String token;
+
+        private final long expiresAt;
+
+        private Session(byte[] credential, String token, long expiresAt) {
+            this.credential = credential;
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
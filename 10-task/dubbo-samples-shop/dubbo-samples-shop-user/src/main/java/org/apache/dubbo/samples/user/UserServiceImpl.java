@@ -17,33 +17,32 @@
 package org.apache.dubbo.samples.user;
 
 import org.apache.dubbo.config.annotation.DubboService;
+import org.apache.dubbo.rpc.AsyncContext;
+import org.apache.dubbo.rpc.RpcContext;
 import org.apache.dubbo.samples.User;
 import org.apache.dubbo.samples.UserService;
 
-import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @DubboService(timeout = 1000)
 public class UserServiceImpl implements UserService {
+
+    @Autowired
+    private UserAccounts accounts;
+
     @Override
     public boolean register(User user) {
-        // Do something that consumes resources
-        for (int i = 0; i < 100; i++) {
-            Math.pow(ThreadLocalRandom.current().nextDouble(10), ThreadLocalRandom.current().nextDouble(5));
-        }
-
-        return true;
+        Boolean registered = respond(accounts.register(user));
+        return registered != null && registered;
     }
 
     @Override
     public User login(String username, String password) {
-        // Do something that consumes resources
-        User user = new User();
-        user.setUsername(username);
-        user.setPassword(password);
-        user.setPhone("13912345678");
-        user.setMail("dev@dubbo.apache.org");
-        user.setRealName("Dubbo Test");
-        return user;
+        return respond(accounts.login(username, password));
     }
 
     @Override
@@ -53,33 +52,42 @@ public class UserServiceImpl implements UserService {
         } catch (InterruptedException ignore) {
             Thread.currentThread().interrupt();
         }
-        User user = new User();
-        user.setUsername(username);
-        user.setPassword(password);
-        user.setPhone("13912345678");
-        user.setMail("dev@dubbo.apache.org");
-        user.setRealName("Dubbo Test");
-        return user;
+        return respond(accounts.login(username, password));
     }
 
-    private int count = 1;
+    private final AtomicInteger count = new AtomicInteger(1);
 
     @Override
     public User getInfo(String username) {
-        System.out.println("Received getInfo request......");
         try {
-            if (++count % 3 != 0) {
+            if (count.incrementAndGet() % 3 != 0) {
                 Thread.sleep(3000);
             }
         } catch (InterruptedException ignore) {
             Thread.currentThread().interrupt();
         }
-        User user = new User();
-        user.setUsername(username);
-        user.setPassword("password");
-        user.setPhone("13912345678");
-        user.setMail("dev@dubbo.apache.org");
-        user.setRealName("Dubbo Test");
-        return user;
+        return accounts.profile(username);
+    }
+
+    /**
+     * Answers right away when the result is already there, e.g. from a session, and otherwise releases the Dubbo
+     * thread and writes the response once the password hasher completes.
+     */
+    private static <T> T respond(CompletableFuture<T> result) {
+        if (result.isDone()) {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+        AsyncContext context = RpcContext.startAsync();
+        result.whenComplete((value, t) -> context.write(t == null ? value : unwrap(t)));
+        return null;
+    }
+
+    private static RuntimeException unwrap(Throwable t) {
+        Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
     }
 }
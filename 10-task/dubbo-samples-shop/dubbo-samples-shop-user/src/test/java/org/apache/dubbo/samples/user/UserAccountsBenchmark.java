@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.samples.user;
+
+import org.apache.dubbo.samples.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Register and login against {@link UserAccounts} with the frontend BenchmarkClient's mix, 5 registering and
+ * 10 logging in threads. With 5 users, names and passwords drawn from the BenchmarkClient's lists, most logins
+ * either hit a session or fail the hash check; with 10000 users most requests pay for a full password hash.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class UserAccountsBenchmark {
+
+    private static final String[] PASSWORDS = {"123456", "654321", "admin", "root", "pwd"};
+
+    @Param({"5", "10000"})
+    private int users;
+
+    @Param({"10000"})
+    private int iterations;
+
+    private PasswordHasher hasher;
+
+    private UserAccounts accounts;
+
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        hasher = new PasswordHasher(iterations, 0, 256);
+        accounts = new UserAccounts(hasher, Integer.MAX_VALUE, 100000, Duration.ofMinutes(30), true);
+        String[] base = {"John", "Mike", "Kevin", "Grace", "Mark"};
+        names = new String[users];
+        for (int i = 0; i < users; i++) {
+            names[i] = users == base.length ? base[i] : "user-" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        hasher.close();
+    }
+
+    @Benchmark
+    @Group("mix")
+    @GroupThreads(5)
+    public Boolean register() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String name = names[random.nextInt(names.length)];
+        User user = new User();
+        user.setUsername(name);
+        user.setPassword(PASSWORDS[random.nextInt(PASSWORDS.length)]);
+        user.setRealName(name);
+        user.setMail("dev@dubbo.apache.org");
+        user.setPhone("12345678");
+        return accounts.register(user).join();
+    }
+
+    @Benchmark
+    @Group("mix")
+    @GroupThreads(10)
+    public User login() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return accounts.login(names[random.nextInt(names.length)], PASSWORDS[random.nextInt(PASSWORDS.length)]).join();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UserAccountsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.samples.workload;
+
+import java.util.List;
+
+/**
+ * The target level (rate or users) over time, as described by the configured stages.
+ */
+class LoadProfile {
+
+    private final double[] targets;
+
+    private final long[] durations;
+
+    private final double max;
+
+    LoadProfile(List<WorkloadProperties.Stage> stages) {
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("workload.stages must not be empty");
+        }
+        targets = new double[stages.size()];
+        durations = new long[stages.size()];
+        double max = 0;
+        for (int i = 0; i < stages.size(); i++) {
+            WorkloadProperties.Stage stage = stages.get(i);
+            if (stage.getTarget() < 0) {
+                throw new IllegalArgumentException("workload.stages[" + i + "].target must not be negative");
+            }
+            long duration = stage.getDuration() == null ? 0 : stage.getDuration().toNanos();
+            if (duration <= 0 && i < stages.size() - 1) {
+                throw new IllegalArgumentException("Only the last of workload.stages may hold without a duration");
+            }
+            targets[i] = stage.getTarget();
+            durations[i] = duration;
+            max = Math.max(max, stage.getTarget());
+        }
+        if (max <= 0) {
+            throw new IllegalArgumentException("At least one of workload.stages needs a positive target");
+        }
+        this.max = max;
+    }
+
+    /**
+     * @return the level at the given time since start, or -1 once the last stage is over
+     */
+    double levelAt(long elapsedNanos) {
+        double from = 0;
+        for (int i = 0; i < targets.length; i++) {
+            if (durations[i] <= 0) {
+                return targets[i];
+            }
+            if (elapsedNanos < durations[i]) {
+                return from + (targets[i] - from) * elapsedNanos / durations[i];
+            }
+            elapsedNanos -= durations[i];
+            from = targets[i];
+        }
+        return -1;
+    }
+
+    double max() {
+        return max;
+    }
+}
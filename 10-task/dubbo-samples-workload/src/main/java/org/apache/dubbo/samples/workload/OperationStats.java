@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.samples.workload;
+
+import org.apache.dubbo.rpc.RpcException;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and outcome counters of one operation. Latencies are recorded in microseconds.
+ */
+class OperationStats {
+
+    private final String name;
+
+    private final Recorder recorder = new Recorder(3);
+
+    private final Histogram total = new Histogram(3);
+
+    private final LongAdder ok = new LongAdder();
+
+    private final LongAdder refused = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    void recordSuccess(boolean accepted, long latencyNanos) {
+        record(latencyNanos);
+        (accepted ? ok : refused).increment();
+    }
+
+    /**
+     * @return whether this is the first error of its kind, so the caller logs the stack trace only once
+     */
+    boolean recordError(Throwable t, long latencyNanos) {
+        record(latencyNanos);
+        boolean[] first = new boolean[1];
+        errors.computeIfAbsent(errorKey(t), k -> {
+            first[0] = true;
+            return new LongAdder();
+        }).increment();
+        return first[0];
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    private void record(long latencyNanos) {
+        recorder.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+    }
+
+    /**
+     * Moves everything recorded since the previous call into the run total.
+     *
+     * @return the latencies recorded since the previous call
+     */
+    synchronized Histogram interval() {
+        Histogram interval = recorder.getIntervalHistogram();
+        total.add(interval);
+        return interval;
+    }
+
+    /**
+     * @return a copy of all latencies recorded so far
+     */
+    synchronized Histogram total() {
+        interval();
+        return total.copy();
+    }
+
+    long ok() {
+        return ok.sum();
+    }
+
+    long refused() {
+        return refused.sum();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    long errorCount() {
+        long sum = 0;
+        for (LongAdder adder : errors.values()) {
+            sum += adder.sum();
+        }
+        return sum;
+    }
+
+    Map<String, Long> errors() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        errors.forEach((key, adder) -> snapshot.put(key, adder.sum()));
+        return snapshot;
+    }
+
+    static String errorKey(Throwable t) {
+        if (t instanceof RpcException) {
+            RpcException e = (RpcException) t;
+            if (e.isTimeout()) {
+                return "timeout";
+            }
+            if (e.isNetwork()) {
+                return "network";
+            }
+            if (e.isLimitExceed()) {
+                return "limit-exceeded";
+            }
+            if (e.isForbidden()) {
+                return "no-provider";
+            }
+            if (e.isSerialization()) {
+                return "serialization";
+            }
+            if (e.isBiz() && e.getCause() != null) {
+                return e.getCause().getClass().getSimpleName();
+            }
+            return "rpc-" + e.getCode();
+        }
+        return t.getClass().getSimpleName();
+    }
+}
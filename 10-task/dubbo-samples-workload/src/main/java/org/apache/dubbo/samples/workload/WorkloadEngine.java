@@ -0,0 +1,326 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.samples.workload;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a weighted mix of operations through the configured stages and reports latency percentiles and errors
+ * per operation.
+ * <p>
+ * In open loop mode arrivals follow a Poisson process whose rate tracks the current stage, and latency is measured
+ * from the scheduled arrival, so a slow shop shows up as latency instead of as a lower request rate. In closed loop
+ * mode the current stage decides how many users are active, each one issuing requests back to back.
+ */
+public class WorkloadEngine {
+    private static final Logger logger = LoggerFactory.getLogger(WorkloadEngine.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final WorkloadProperties properties;
+
+    private final LoadProfile profile;
+
+    private final Operation[] operations;
+
+    private final OperationStats[] stats;
+
+    private final int[] cumulativeWeights;
+
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    private volatile boolean running;
+
+    private long startNanos;
+
+    private Thread driver;
+
+    private ThreadPoolExecutor workers;
+
+    private ScheduledExecutorService reporter;
+
+    public WorkloadEngine(WorkloadProperties properties, Map<String, Operation> available) {
+        this.properties = properties;
+        this.profile = new LoadProfile(properties.getStages());
+
+        List<String> names = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        properties.getMix().forEach((name, weight) -> {
+            if (!available.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown operation in workload.mix: " + name
+                        + ", expected one of " + available.keySet());
+            }
+            if (weight != null && weight > 0) {
+                names.add(name);
+                weights.add(weight);
+            }
+        });
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("workload.mix needs at least one operation with a positive weight");
+        }
+
+        operations = new Operation[names.size()];
+        stats = new OperationStats[names.size()];
+        cumulativeWeights = new int[names.size()];
+        int sum = 0;
+        for (int i = 0; i < names.size(); i++) {
+            operations[i] = available.get(names.get(i));
+            stats[i] = new OperationStats(names.get(i));
+            sum += weights.get(i);
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    public synchronized void start() {
+        if (running || finished.get()) {
+            throw new IllegalStateException("Workload already started");
+        }
+        running = true;
+        startNanos = System.nanoTime();
+
+        boolean open = properties.getMode() == WorkloadProperties.Mode.OPEN;
+        int threads = open ? properties.getMaxInFlight() : (int) Math.ceil(profile.max());
+        workers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                daemonThreads("workload-worker-"));
+        workers.allowCoreThreadTimeOut(true);
+
+        long reportMillis = properties.getReportInterval().toMillis();
+        if (reportMillis > 0) {
+            reporter = new ScheduledThreadPoolExecutor(1, daemonThreads("workload-reporter-"));
+            reporter.scheduleAtFixedRate(this::reportInterval, reportMillis, reportMillis, TimeUnit.MILLISECONDS);
+        }
+
+        driver = daemonThreads("workload-driver-").newThread(() -> {
+            try {
+                if (open) {
+                    runOpenLoop();
+                } else {
+                    runClosedLoop();
+                }
+            } catch (Throwable t) {
+                logger.error("Workload driver failed.", t);
+            } finally {
+                finish();
+            }
+        });
+        driver.start();
+        logger.info("Workload started in {} loop mode, mix {}, peak level {}.",
+                open ? "open" : "closed", properties.getMix(), profile.max());
+    }
+
+    /**
+     * Stops issuing requests, waits briefly for outstanding ones and logs the final report. Safe to call more
+     * than once and after the last stage ended on its own.
+     */
+    public void stop() {
+        running = false;
+        Thread driver;
+        synchronized (this) {
+            driver = this.driver;
+        }
+        if (driver != null) {
+            driver.interrupt();
+            try {
+                driver.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void runOpenLoop() {
+        // Thinning: draw arrivals at the peak rate and keep each with probability current rate / peak rate,
+        // which yields a Poisson process that follows the ramps exactly.
+        double peak = profile.max();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long next = startNanos;
+        while (running) {
+            next += (long) (-Math.log(1 - random.nextDouble()) / peak * 1e9);
+            double rate = profile.levelAt(next - startNanos);
+            if (rate < 0) {
+                return;
+            }
+            parkUntil(next);
+            if (!running || random.nextDouble() * peak >= rate) {
+                continue;
+            }
+            int op = pick(random);
+            long scheduled = next;
+            try {
+                workers.execute(() -> call(op, scheduled));
+            } catch (RejectedExecutionException e) {
+                stats[op].recordDropped();
+            }
+        }
+    }
+
+    private void runClosedLoop() {
+        int users = (int) Math.ceil(profile.max());
+        for (int i = 0; i < users; i++) {
+            int user = i;
+            workers.execute(() -> runUser(user));
+        }
+        while (running && profile.levelAt(System.nanoTime() - startNanos) >= 0) {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    private void runUser(int user) {
+        long thinkNanos = properties.getThinkTime() == null ? 0 : properties.getThinkTime().toNanos();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running) {
+            double level = profile.levelAt(System.nanoTime() - startNanos);
+            if (level < 0) {
+                return;
+            }
+            if (user >= (int) level) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            call(pick(random), System.nanoTime());
+            if (thinkNanos > 0) {
+                LockSupport.parkNanos(thinkNanos);
+            }
+        }
+    }
+
+    private void call(int op, long startedNanos) {
+        try {
+            boolean accepted = operations[op].invoke();
+            stats[op].recordSuccess(accepted, System.nanoTime() - startedNanos);
+        } catch (Throwable t) {
+            if (stats[op].recordError(t, System.nanoTime() - startedNanos)) {
+                logger.warn("First {} error of {}, further ones are only counted.",
+                        OperationStats.errorKey(t), stats[op].name(), t);
+            }
+        }
+    }
+
+    private int pick(ThreadLocalRandom random) {
+        int r = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (r >= cumulativeWeights[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private void parkUntil(long deadline) {
+        long remaining;
+        while (running && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private void finish() {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        running = false;
+        // stop() interrupts the driver to cut a park short, don't let that skip waiting for the workers
+        Thread.interrupted();
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Workload requests still outstanding after 10s, reporting without them.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info(finalReport());
+    }
+
+    private void reportInterval() {
+        double seconds = properties.getReportInterval().toMillis() / 1000.0;
+        long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos);
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Workload at %ds, level %.1f:",
+                elapsed, Math.max(0, profile.levelAt(System.nanoTime() - startNanos))));
+        for (OperationStats stat : stats) {
+            Histogram interval = stat.interval();
+            report.append(String.format("%n  %-14s %8.1f/s  p50 %8.2fms  p99 %8.2fms  max %8.2fms",
+                    stat.name(), interval.getTotalCount() / seconds,
+                    millis(interval.getValueAtPercentile(50)), millis(interval.getValueAtPercentile(99)),
+                    millis(interval.getMaxValue())));
+        }
+        logger.info(report.toString());
+    }
+
+    private String finalReport() {
+        double seconds = Math.max(1e-3, (System.nanoTime() - startNanos) / 1e9);
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Workload finished after %.1fs in %s loop mode.%n", seconds,
+                properties.getMode() == WorkloadProperties.Mode.OPEN ? "open" : "closed"));
+        report.append(String.format("%-14s %9s %9s %9s %9s %9s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "calls", "ok", "refused", "errors", "dropped", "rps",
+                "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)"));
+        List<String> errorLines = new ArrayList<>();
+        for (OperationStats stat : stats) {
+            Histogram total = stat.total();
+            report.append(String.format("%-14s %9d %9d %9d %9d %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    stat.name(), total.getTotalCount(), stat.ok(), stat.refused(), stat.errorCount(),
+                    stat.dropped(), total.getTotalCount() / seconds,
+                    millis(total.getValueAtPercentile(50)), millis(total.getValueAtPercentile(90)),
+                    millis(total.getValueAtPercentile(99)), millis(total.getValueAtPercentile(99.9)),
+                    millis(total.getMaxValue())));
+            stat.errors().forEach((key, count) ->
+                    errorLines.add(String.format("  %-14s %-24s %9d", stat.name(), key, count)));
+        }
+        if (errorLines.isEmpty()) {
+            report.append("No errors.");
+        } else {
+            report.append("Errors:");
+            for (String line : errorLines) {
+                report.append(String.format("%n")).append(line);
+            }
+        }
+        return report.toString();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.samples.workload;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Declarative description of a load run, bound from the {@code workload.*} properties.
+ */
+@ConfigurationProperties(prefix = "workload")
+public class WorkloadProperties {
+
+    public enum Mode {
+        /**
+         * Requests arrive at the stage's rate (requests per second) no matter how fast the shop answers.
+         */
+        OPEN,
+        /**
+         * The stage's target is a number of users, each issuing its next request once the previous one returned.
+         */
+        CLOSED
+    }
+
+    private boolean enabled;
+
+    private Mode mode = Mode.OPEN;
+
+    /**
+     * Operation name to relative weight.
+     */
+    private Map<String, Integer> mix = new LinkedHashMap<>();
+
+    /**
+     * Each stage ramps linearly from the previous stage's target (0 for the first) to its own target over its
+     * duration. A last stage without a duration holds its target until shutdown.
+     */
+    private List<Stage> stages = new ArrayList<>();
+
+    /**
+     * Open loop only, arrivals beyond this many outstanding requests are dropped and counted.
+     */
+    private int maxInFlight = 256;
+
+    /**
+     * Closed loop only, pause between a user's requests.
+     */
+    private Duration thinkTime = Duration.ZERO;
+
+    private Duration reportInterval = Duration.ofSeconds(10);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Map<String, Integer> getMix() {
+        return mix;
+    }
+
+    public void setMix(Map<String, Integer> mix) {
+        this.mix = mix;
+    }
+
+    public List<Stage> getStages() {
+        return stages;
+    }
+
+    public void setStages(List<Stage> stages) {
+        this.stages = stages;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public Duration getThinkTime() {
+        return thinkTime;
+    }
+
+    public void setThinkTime(Duration thinkTime) {
+        this.thinkTime = thinkTime;
+    }
+
+    public Duration getReportInterval() {
+        return reportInterval;
+    }
+
+    public void setReportInterval(Duration reportInterval) {
+        this.reportInterval = reportInterval;
+    }
+
+    public static class Stage {
+
+        private double target;
+
+        private Duration duration = Duration.ZERO;
+
+        public double getTarget() {
+            return target;
+        }
+
+        public void setTarget(double target) {
+            this.target = target;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        public void setDuration(Duration duration) {
+            this.duration = duration;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.service.ads;
+
+import org.apache.dubbo.shop.common.pojo.Ad;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable ad inventory: one {@link AdPool} per category plus a flat pool over every ad, all built once per load.
+ * Pools for multi-key requests are merged on first use and cached, least recently used first out, a reload
+ * replaces the catalog and with it the cache.
+ */
+final class AdCatalog {
+
+    static final AdCatalog EMPTY = new AdCatalog(new HashMap<>(), 0);
+
+    private final Map<String, AdPool> categories = new HashMap<>();
+
+    private final Map<String, List<Entry>> entries;
+
+    private final AdPool all;
+
+    /**
+     * Access ordered and guarded by itself.
+     */
+    private final Map<List<String>, AdPool> combined;
+
+    private final int size;
+
+    AdCatalog(Map<String, List<Entry>> ads, int maxCombined) {
+        this.entries = new HashMap<>(ads);
+        this.combined = new LinkedHashMap<List<String>, AdPool>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<String>, AdPool> eldest) {
+                return size() > maxCombined;
+            }
+        };
+        List<Entry> flat = new ArrayList<>();
+        for (Map.Entry<String, List<Entry>> entry : entries.entrySet()) {
+            categories.put(entry.getKey(), build(entry.getValue()));
+            flat.addAll(entry.getValue());
+        }
+        this.all = build(flat);
+        this.size = flat.size();
+    }
+
+    int size() {
+        return size;
+    }
+
+    AdPool all() {
+        return all;
+    }
+
+    /**
+     * Pool of every ad under the given categories, unknown categories contribute nothing.
+     */
+    AdPool pool(List<String> contextKeys) {
+        if (contextKeys.size() == 1) {
+            return categories.getOrDefault(contextKeys.get(0), AdPool.EMPTY);
+        }
+        AdPool pool;
+        synchronized (combined) {
+            pool = combined.get(contextKeys);
+        }
+        if (pool != null) {
+            return pool;
+        }
+        // merged outside the lock, a pool only depends on the keys so a racing merge just yields an equal one. The
+        // pages of the shop ask for a handful of category combinations over and over, evicting the least recently
+        // used keeps those while one-off combinations sent by clients age out
+        List<String> key = List.copyOf(contextKeys);
+        AdPool merged = merge(key);
+        synchronized (combined) {
+            pool = combined.putIfAbsent(key, merged);
+        }
+        return pool == null ? merged : pool;
+    }
+
+    private AdPool merge(List<String> contextKeys) {
+        // a category named twice still counts once, as does an ad listed under two categories
+        Map<Ad, Double> merged = new LinkedHashMap<>();
+        for (String category : new LinkedHashSet<>(contextKeys)) {
+            for (Entry ad : entries.getOrDefault(category, List.of())) {
+                merged.merge(ad.toAd(), ad.getWeight(), Math::max);
+            }
+        }
+        List<Entry> ads = new ArrayList<>(merged.size());
+        merged.forEach((ad, weight) -> ads.add(new Entry(ad.getRedirectUrl(), ad.getText(), weight)));
+        return build(ads);
+    }
+
+    private static AdPool build(List<Entry> ads) {
+        if (ads.isEmpty()) {
+            return AdPool.EMPTY;
+        }
+        List<Ad> list = new ArrayList<>(ads.size());
+        double[] weights = new double[ads.size()];
+        for (int i = 0; i < ads.size(); i++) {
+            list.add(ads.get(i).toAd());
+            weights[i] = ads.get(i).getWeight();
+        }
+        return new AdPool(list, weights);
+    }
+
+    /**
+     * 广告条目, ads.json 中的一项
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+
+        private String redirectUrl;
+
+        private String text;
+
+        /**
+         * 相对权重, 缺省为 1
+         */
+        private double weight = 1;
+
+        Ad toAd() {
+            return new Ad(redirectUrl, text);
+        }
+    }
+}
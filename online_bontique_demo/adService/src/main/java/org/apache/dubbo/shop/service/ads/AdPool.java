@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.service.ads;
+
+import org.apache.dubbo.shop.common.pojo.Ad;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Immutable list of ads with their weights, sampled through an {@link AliasTable}.
+ */
+final class AdPool {
+
+    private static final int MAX_ATTEMPTS_PER_AD = 8;
+
+    static final AdPool EMPTY = new AdPool(Collections.emptyList(), new double[0]);
+
+    private final List<Ad> ads;
+
+    private final AliasTable alias;
+
+    AdPool(List<Ad> ads, double[] weights) {
+        this.ads = Collections.unmodifiableList(new ArrayList<>(ads));
+        this.alias = ads.isEmpty() ? null : new AliasTable(weights);
+    }
+
+    boolean isEmpty() {
+        return ads.isEmpty();
+    }
+
+    /**
+     * Draws {@code count} ads by weight, may repeat an ad.
+     */
+    List<Ad> sample(int count, Random random) {
+        List<Ad> sample = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sample.add(ads.get(alias.next(random)));
+        }
+        return sample;
+    }
+
+    /**
+     * All ads when there are at most {@code count}, otherwise {@code count} distinct ads drawn by weight.
+     */
+    List<Ad> sampleDistinct(int count, Random random) {
+        if (ads.size() <= count) {
+            return new ArrayList<>(ads);
+        }
+        List<Ad> sample = new ArrayList<>(count);
+        boolean[] taken = new boolean[ads.size()];
+        // rejection stays cheap unless a few heavy ads dominate, bound it and top up in order
+        for (int attempts = 0; sample.size() < count && attempts < MAX_ATTEMPTS_PER_AD * count; attempts++) {
+            int index = alias.next(random);
+            if (!taken[index]) {
+                taken[index] = true;
+                sample.add(ads.get(index));
+            }
+        }
+        for (int i = 0; sample.size() < count; i++) {
+            if (!taken[i]) {
+                sample.add(ads.get(i));
+            }
+        }
+        return sample;
+    }
+}
@@ -20,74 +20,129 @@ package org.apache.dubbo.shop.service.ads;
 import org.apache.dubbo.config.annotation.DubboService;
 import org.apache.dubbo.shop.common.dto.request.AdRequest;
 import org.apache.dubbo.shop.common.dto.response.AdResponse;
-import org.apache.dubbo.shop.common.pojo.Ad;
 import org.apache.dubbo.shop.service.AdsService;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Serves ads from an immutable {@link AdCatalog}. Ads are read from the bundled ads.json, or from {@code ads.file}
+ * when set, which is then polled every {@code ads.reload-interval-seconds} and swapped in on change.
+ */
+@Slf4j
 @DubboService
 @Service
 public class AdsServiceImpl implements AdsService {
     
     private static final int MAX_ADS_TO_SERVE = 2;
-    private static final Map<String, List<Ad>> adsMap = createAdsMap();
+
+    private static final TypeReference<Map<String, List<AdCatalog.Entry>>> ADS_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Path adsFile;
+
+    private final int maxCachedContexts;
+
+    private volatile AdCatalog catalog = AdCatalog.EMPTY;
+
+    private volatile FileTime lastModified;
+
+    private final ScheduledExecutorService reloader;
+
+    public AdsServiceImpl(@Value("${ads.file:}") String adsFile,
+                          @Value("${ads.reload-interval-seconds:10}") long reloadIntervalSeconds,
+                          @Value("${ads.max-cached-contexts:1024}") int maxCachedContexts) {
+        this.adsFile = adsFile.isEmpty() ? null : Paths.get(adsFile);
+        this.maxCachedContexts = maxCachedContexts;
+        reload();
+        if (this.adsFile != null && reloadIntervalSeconds > 0) {
+            reloader = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "ads-reloader");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reloader.scheduleWithFixedDelay(this::reload, reloadIntervalSeconds, reloadIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            reloader = null;
+        }
+    }
     
     @Override
     public AdResponse getAds(AdRequest request) {
-        List<Ad> allAds = new ArrayList<>();
+        AdCatalog catalog = this.catalog;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
         AdResponse response = new AdResponse();
-        
-        if (request.getContextKeys() != null && !request.getContextKeys().isEmpty()) {
-            for (String category : request.getContextKeys()) {
-                List<Ad> ads = getAdsByCategory(category);
-                allAds.addAll(ads);
-            }
-            if (allAds.isEmpty()) {
-                allAds = getRandomAds();
+
+        AdPool pool = AdPool.EMPTY;
+        List<String> contextKeys = request.getContextKeys();
+        if (contextKeys != null && !contextKeys.isEmpty()) {
+            if (contextKeys.contains(null)) {
+                contextKeys = new ArrayList<>(contextKeys);
+                contextKeys.removeIf(Objects::isNull);
             }
+            pool = catalog.pool(contextKeys);
+        }
+        if (!pool.isEmpty()) {
+            response.setAds(pool.sampleDistinct(MAX_ADS_TO_SERVE, random));
+        } else if (!catalog.all().isEmpty()) {
+            response.setAds(catalog.all().sample(MAX_ADS_TO_SERVE, random));
         } else {
-            allAds = getRandomAds();
+            response.setAds(new ArrayList<>());
         }
-        
-        response.setAds(allAds);
         return response;
     }
-    
-    private List<Ad> getAdsByCategory(String category) {
-        return adsMap.getOrDefault(category, new ArrayList<>());
-    }
-    
-    private List<Ad> getRandomAds() {
-        List<Ad> ads = new ArrayList<>(MAX_ADS_TO_SERVE);
-        List<Ad> allAds = new ArrayList<>();
-        
-        for (List<Ad> adsList : adsMap.values()) {
-            allAds.addAll(adsList);
-        }
-        
-        Random random = new Random();
-        for (int i = 0; i < MAX_ADS_TO_SERVE; i++) {
-            ads.add(allAds.get(random.nextInt(allAds.size())));
+
+    /**
+     * Loads the ads and swaps in a new catalog, a broken file keeps the current one.
+     */
+    void reload() {
+        try {
+            if (adsFile == null) {
+                try (InputStream in = new ClassPathResource("ads.json").getInputStream()) {
+                    catalog = new AdCatalog(objectMapper.readValue(in, ADS_TYPE), maxCachedContexts);
+                }
+                return;
+            }
+            FileTime modified = Files.getLastModifiedTime(adsFile);
+            if (modified.equals(lastModified)) {
+                return;
+            }
+            try (InputStream in = Files.newInputStream(adsFile)) {
+                catalog = new AdCatalog(objectMapper.readValue(in, ADS_TYPE), maxCachedContexts);
+            }
+            lastModified = modified;
+            log.info("Loaded {} ads from {}", catalog.size(), adsFile);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to load ads, keeping {} ads", catalog.size(), e);
         }
-        return ads;
     }
-    
-    private static Map<String, List<Ad>> createAdsMap() {
-        Map<String, List<Ad>> map = new HashMap<>();
-        map.put("clothing", List.of(new Ad("/product/66VCHSJNUP", "Tank top for sale. 20% off.")));
-        map.put("accessories", List.of(new Ad("/product/1YMWWN1N4O", "Watch for sale. Buy one, get second kit for free")));
-        map.put("footwear", List.of(new Ad("/product/L9ECAV7KIM", "Loafers for sale. Buy one, get second one for free")));
-        map.put("hair", List.of(new Ad("/product/2ZYFJ3GM2N", "Hairdryer for sale. 50% off.")));
-        map.put("decor", List.of(new Ad("/product/0PUK6V6EV0", "Candle holder for sale. 30% off.")));
-        map.put("kitchen", List.of(
-                new Ad("/product/9SIQT8TOJO", "Bamboo glass jar for sale. 10% off."),
-                new Ad("/product/6E92ZMYYFZ", "Mug for sale. Buy two, get third one for free")));
-        return map;
+
+    @PreDestroy
+    public void close() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+        }
     }
 }
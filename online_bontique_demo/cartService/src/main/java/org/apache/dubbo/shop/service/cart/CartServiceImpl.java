@@ -21,54 +21,32 @@ import org.apache.dubbo.config.annotation.DubboService;
 import org.apache.dubbo.shop.common.pojo.Cart;
 import org.apache.dubbo.shop.common.pojo.CartItem;
 import org.apache.dubbo.shop.service.CartService;
+import org.apache.dubbo.shop.service.CartStore;
 
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 @DubboService
 @Service
 public class CartServiceImpl implements CartService {
 
-    private final Map<String, List<CartItem>> cartStore = new HashMap<>();
-    @Override
-    public void addItem(String userId, CartItem newItem) {
-        // Retrieve the list of cart items for the user, create a new list if it doesn't exist
-        List<CartItem> cartItems = cartStore.computeIfAbsent(userId, k -> new ArrayList<>());
-
-        // Flag to check if the item was updated
-        boolean itemUpdated = false;
+    private final CartStore cartStore;
 
-        // Iterate through the list to check if the item already exists
-        for (CartItem item : cartItems) {
-            if (item.getProductId().equals(newItem.getProductId())) {
-                // If the item exists, update the quantity
-                item.setQuantity(item.getQuantity() + newItem.getQuantity());
-                itemUpdated = true;
-                break;
-            }
-        }
-
-        // If the item was not updated, add it as a new item
-        if (!itemUpdated) {
-            cartItems.add(newItem);
-        }
+    public CartServiceImpl(CartStore cartStore) {
+        this.cartStore = cartStore;
+    }
 
-        // Update the cartStore with the new list
-        cartStore.put(userId, cartItems);
+    @Override
+    public void addItem(String userId, CartItem newItem) {
+        cartStore.addItem(userId, newItem.getProductId(), newItem.getQuantity());
     }
 
     @Override
     public Cart getCart(String userId) {
-        List<CartItem> items = cartStore.getOrDefault(userId, new ArrayList<>());
-        return new Cart(userId, items);
+        return cartStore.getCart(userId);
     }
 
     @Override
     public void emptyCart(String userId) {
-        cartStore.remove(userId);
+        cartStore.emptyCart(userId);
     }
 }
@@ -22,7 +22,7 @@ import org.apache.dubbo.config.spring.context.annotation.EnableDubbo;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
-@SpringBootApplication
+@SpringBootApplication(scanBasePackages = "org.apache.dubbo.shop.service")
 @EnableDubbo
 public class CartServiceImplApplication {
     
@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.service.cartstore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only cart log split into fixed size, memory-mapped segment files.
+ * <p>
+ * A record is {@code [int length][int crc][byte type][userId][items]}, strings are a short length followed by
+ * UTF-8 bytes. A {@link #CART} record holds the whole cart of a user, an {@link #EMPTY} record marks the cart
+ * as emptied. The length is written last, so a record torn by a crash fails its crc and ends recovery.
+ * <p>
+ * A location is {@code segmentId << 32 | offset}.
+ */
+final class CartLog implements Closeable {
+
+    static final byte CART = 1;
+
+    static final byte EMPTY = 2;
+
+    private static final int HEADER = 8;
+
+    private static final String PREFIX = "cart-";
+
+    private static final String SUFFIX = ".log";
+
+    private final Path dir;
+
+    private final int segmentSize;
+
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private Segment active;
+
+    CartLog(Path dir, int segmentSize) throws IOException {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(PREFIX) && name.endsWith(SUFFIX)) {
+                    int id = Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+                    segments.put(id, new Segment(id, file, Math.max(segmentSize, (int) Files.size(file))));
+                }
+            }
+        }
+    }
+
+    interface RecordVisitor {
+
+        void visit(long location, byte type, String userId, int length);
+    }
+
+    /**
+     * Scans all segments oldest first, finding the end of each one. Must run before the first append.
+     */
+    void recover(RecordVisitor visitor) {
+        for (Segment segment : segments.values()) {
+            segment.position = scan(segment, visitor);
+            segment.sealed = true;
+        }
+        if (!segments.isEmpty()) {
+            active = segments.lastEntry().getValue();
+            active.sealed = false;
+        }
+    }
+
+    /**
+     * Visits the valid records of a segment, returns the offset after the last one.
+     */
+    int scan(Segment segment, RecordVisitor visitor) {
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        while (offset + HEADER < buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= HEADER || length > buffer.capacity() - offset || crc(buffer, offset, length) != buffer.getInt(offset + 4)) {
+                break;
+            }
+            visitor.visit(location(segment.id, offset), buffer.get(offset + HEADER), readString(buffer, offset + HEADER + 1), length);
+            offset += length;
+        }
+        return offset;
+    }
+
+    synchronized long append(byte[] record) {
+        if (record.length > segmentSize) {
+            throw new IllegalStateException("Cart record of " + record.length + " bytes exceeds the segment size");
+        }
+        if (active == null || active.position + record.length > active.buffer.capacity()) {
+            roll();
+        }
+        int offset = active.position;
+        MappedByteBuffer buffer = active.buffer;
+        buffer.put(offset + 4, record, 4, record.length - 4);
+        buffer.putInt(offset, record.length);
+        active.position += record.length;
+        return location(active.id, offset);
+    }
+
+    private void roll() {
+        int id = 1;
+        if (active != null) {
+            active.buffer.force();
+            active.sealed = true;
+            id = active.id + 1;
+        }
+        Path file = dir.resolve(String.format("%s%08d%s", PREFIX, id, SUFFIX));
+        try {
+            Segment segment = new Segment(id, file, segmentSize);
+            segments.put(id, segment);
+            active = segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static byte[] encodeCart(String userId, Map<String, Integer> items) {
+        byte[] user = userId.getBytes(StandardCharsets.UTF_8);
+        List<byte[]> products = new ArrayList<>(items.size());
+        int length = HEADER + 1 + 2 + user.length + 4;
+        for (String productId : items.keySet()) {
+            byte[] product = productId.getBytes(StandardCharsets.UTF_8);
+            products.add(product);
+            length += 2 + product.length + 4;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(length).putInt(0).put(CART);
+        putString(buffer, user);
+        buffer.putInt(items.size());
+        int i = 0;
+        for (Integer quantity : items.values()) {
+            putString(buffer, products.get(i++));
+            buffer.putInt(quantity);
+        }
+        return seal(buffer);
+    }
+
+    static byte[] encodeEmpty(String userId) {
+        byte[] user = userId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + 1 + 2 + user.length);
+        buffer.putInt(buffer.capacity()).putInt(0).put(EMPTY);
+        putString(buffer, user);
+        return seal(buffer);
+    }
+
+    /**
+     * Copies a record as is, used by compaction to move it to the active segment.
+     */
+    byte[] copy(long location) {
+        Segment segment = segment(location);
+        int offset = offset(location);
+        byte[] record = new byte[segment.buffer.getInt(offset)];
+        segment.buffer.get(offset, record);
+        return record;
+    }
+
+    String userIdAt(long location) {
+        return readString(segment(location).buffer, offset(location) + HEADER + 1);
+    }
+
+    Map<String, Integer> readItems(long location) {
+        MappedByteBuffer buffer = segment(location).buffer;
+        int offset = offset(location) + HEADER + 1;
+        offset += 2 + buffer.getShort(offset);
+        int count = buffer.getInt(offset);
+        offset += 4;
+        Map<String, Integer> items = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String productId = readString(buffer, offset);
+            offset += 2 + buffer.getShort(offset);
+            items.put(productId, buffer.getInt(offset));
+            offset += 4;
+        }
+        return items;
+    }
+
+    int length(long location) {
+        return segment(location).buffer.getInt(offset(location));
+    }
+
+    /**
+     * The index points at a record, its bytes count as live for compaction.
+     */
+    void retain(long location) {
+        segment(location).live.addAndGet(length(location));
+    }
+
+    /**
+     * The index no longer points at a record.
+     */
+    void release(long location) {
+        segment(location).live.addAndGet(-length(location));
+    }
+
+    synchronized List<Segment> sealedSegments() {
+        List<Segment> sealed = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            if (segment.sealed) {
+                sealed.add(segment);
+            }
+        }
+        return sealed;
+    }
+
+    boolean isOldest(Segment segment) {
+        return segments.firstKey() == segment.id;
+    }
+
+    /**
+     * Deletes a compacted segment, after making the records copied out of it durable.
+     */
+    void delete(Segment segment) throws IOException {
+        force();
+        segments.remove(segment.id);
+        Files.deleteIfExists(segment.file);
+    }
+
+    void force() {
+        Segment segment;
+        synchronized (this) {
+            segment = active;
+        }
+        if (segment != null) {
+            segment.buffer.force();
+        }
+    }
+
+    long size() {
+        long size = 0;
+        for (Segment segment : segments.values()) {
+            size += segment.buffer.capacity();
+        }
+        return size;
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+
+    private Segment segment(long location) {
+        Segment segment = segments.get((int) (location >>> 32));
+        if (segment == null) {
+            throw new IllegalStateException("Cart log segment of location " + location + " is gone");
+        }
+        return segment;
+    }
+
+    private static long location(int segmentId, int offset) {
+        return (long) segmentId << 32 | offset;
+    }
+
+    private static int offset(long location) {
+        return (int) location;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String readString(MappedByteBuffer buffer, int offset) {
+        byte[] bytes = new byte[buffer.getShort(offset)];
+        buffer.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] seal(ByteBuffer buffer) {
+        byte[] record = buffer.array();
+        CRC32 crc = new CRC32();
+        crc.update(record, HEADER, record.length - HEADER);
+        buffer.putInt(4, (int) crc.getValue());
+        return record;
+    }
+
+    private static int crc(MappedByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset + HEADER, length - HEADER));
+        return (int) crc.getValue();
+    }
+
+    static final class Segment {
+
+        final int id;
+
+        final Path file;
+
+        final MappedByteBuffer buffer;
+
+        final AtomicInteger live = new AtomicInteger();
+
+        volatile boolean sealed;
+
+        /**
+         * Only written under the log's lock, volatile for the compactor reading {@link #liveRatio()} without it.
+         */
+        volatile int position;
+
+        Segment(int id, Path file, int size) throws IOException {
+            this.id = id;
+            this.file = file;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+
+        double liveRatio() {
+            return position == 0 ? 1 : (double) live.get() / position;
+        }
+    }
+}
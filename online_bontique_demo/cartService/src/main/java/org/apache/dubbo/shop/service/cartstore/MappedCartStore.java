@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.service.cartstore;
+
+import org.apache.dubbo.shop.common.pojo.Cart;
+import org.apache.dubbo.shop.common.pojo.CartItem;
+import org.apache.dubbo.shop.service.CartStore;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+/**
+ * 持久化购物车
+ * <p>
+ * Every update appends the whole cart of the user to a memory-mapped {@link CartLog}, an {@link OffHeapIndex}
+ * points each userId at its latest record, so neither the carts nor the index live on the GC heap. On startup the
+ * log is scanned once to rebuild the index; a background task copies the live records out of mostly dead segments
+ * and deletes them. Updates of one user are serialized on a lock stripe.
+ * <p>
+ * Enabled with {@code cart.store.type=mapped}, the log lives in {@code cart.store.dir}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cart.store.type", havingValue = "mapped")
+public class MappedCartStore implements CartStore {
+
+    private static final int STRIPES = 64;
+
+    private final Object[] stripes = new Object[STRIPES];
+
+    private final CartLog cartLog;
+
+    private final OffHeapIndex index;
+
+    private final int maxItemsPerCart;
+
+    private final double compactionThreshold;
+
+    private final ScheduledExecutorService maintenance;
+
+    public MappedCartStore(@Value("${cart.store.dir:cart-store}") String dir,
+                           @Value("${cart.store.segment-size-mb:64}") int segmentSizeMb,
+                           @Value("${cart.store.max-items-per-cart:500}") int maxItemsPerCart,
+                           @Value("${cart.store.compaction-threshold:0.5}") double compactionThreshold,
+                           @Value("${cart.store.flush-interval-ms:1000}") long flushIntervalMs) throws IOException {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        this.maxItemsPerCart = maxItemsPerCart;
+        this.compactionThreshold = compactionThreshold;
+        this.index = new OffHeapIndex(1 << 16);
+        this.cartLog = new CartLog(Paths.get(dir), segmentSizeMb << 20);
+        recover();
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cart-store-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(cartLog::force, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        maintenance.scheduleWithFixedDelay(this::compact, 30, 30, TimeUnit.SECONDS);
+    }
+
+    private void recover() {
+        long start = System.nanoTime();
+        cartLog.recover((location, type, userId, length) -> {
+            long hash = OffHeapIndex.hash(userId);
+            LongPredicate owner = owner(userId);
+            long previous = type == CartLog.CART ? index.put(hash, location, owner) : index.remove(hash, owner);
+            if (previous != OffHeapIndex.NONE) {
+                cartLog.release(previous);
+            }
+            if (type == CartLog.CART) {
+                cartLog.retain(location);
+            }
+        });
+        log.info("Recovered {} carts from {} bytes of cart log in {} ms", index.size(), cartLog.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @Override
+    public void addItem(String userId, String productId, Integer quantity) {
+        long hash = OffHeapIndex.hash(userId);
+        LongPredicate owner = owner(userId);
+        synchronized (stripe(hash)) {
+            long location = index.get(hash, owner);
+            Map<String, Integer> items = location == OffHeapIndex.NONE ? new LinkedHashMap<>() : cartLog.readItems(location);
+            Integer current = items.get(productId);
+            if (current == null && items.size() >= maxItemsPerCart) {
+                throw new IllegalStateException("Cart is full, at most " + maxItemsPerCart + " products");
+            }
+            items.put(productId, current == null ? quantity : Math.addExact(current, quantity));
+            long next = cartLog.append(CartLog.encodeCart(userId, items));
+            cartLog.retain(next);
+            index.put(hash, next, owner);
+            if (location != OffHeapIndex.NONE) {
+                cartLog.release(location);
+            }
+        }
+    }
+
+    @Override
+    public void emptyCart(String userId) {
+        long hash = OffHeapIndex.hash(userId);
+        synchronized (stripe(hash)) {
+            long location = index.remove(hash, owner(userId));
+            if (location != OffHeapIndex.NONE) {
+                cartLog.append(CartLog.encodeEmpty(userId));
+                cartLog.release(location);
+            }
+        }
+    }
+
+    @Override
+    public Cart getCart(String userId) {
+        long hash = OffHeapIndex.hash(userId);
+        List<CartItem> items = new ArrayList<>();
+        synchronized (stripe(hash)) {
+            long location = index.get(hash, owner(userId));
+            if (location != OffHeapIndex.NONE) {
+                cartLog.readItems(location).forEach((productId, quantity) -> items.add(new CartItem(productId, quantity)));
+            }
+        }
+        return new Cart(userId, items);
+    }
+
+    /**
+     * Moves the live records out of sealed segments that are mostly dead, then deletes them. An EMPTY record is kept
+     * as long as an older segment may still hold a cart of the user, otherwise recovery would bring that cart back.
+     */
+    void compact() {
+        try {
+            for (CartLog.Segment segment : cartLog.sealedSegments()) {
+                if (segment.liveRatio() > compactionThreshold) {
+                    continue;
+                }
+                boolean oldest = cartLog.isOldest(segment);
+                cartLog.scan(segment, (location, type, userId, length) -> {
+                    long hash = OffHeapIndex.hash(userId);
+                    LongPredicate owner = owner(userId);
+                    synchronized (stripe(hash)) {
+                        long current = index.get(hash, owner);
+                        if (type == CartLog.CART && current == location) {
+                            long moved = cartLog.append(cartLog.copy(location));
+                            cartLog.retain(moved);
+                            index.put(hash, moved, owner);
+                            cartLog.release(location);
+                        } else if (type == CartLog.EMPTY && current == OffHeapIndex.NONE && !oldest) {
+                            cartLog.append(cartLog.copy(location));
+                        }
+                    }
+                });
+                cartLog.delete(segment);
+                log.info("Compacted cart log segment {}", segment.file);
+            }
+        } catch (Throwable t) {
+            log.error("Failed to compact cart log", t);
+        }
+    }
+
+    private LongPredicate owner(String userId) {
+        return location -> userId.equals(cartLog.userIdAt(location));
+    }
+
+    private Object stripe(long hash) {
+        return stripes[(int) hash & (STRIPES - 1)];
+    }
+
+    @PreDestroy
+    public void close() {
+        maintenance.shutdownNow();
+        cartLog.close();
+    }
+}
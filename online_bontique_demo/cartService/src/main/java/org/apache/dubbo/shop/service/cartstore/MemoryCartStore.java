@@ -21,36 +21,189 @@ import org.apache.dubbo.shop.common.pojo.Cart;
 import org.apache.dubbo.shop.common.pojo.CartItem;
 import org.apache.dubbo.shop.service.CartStore;
 
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * 线程安全的内存购物车
+ * <p>
+ * Carts are kept in a {@link ConcurrentHashMap} keyed by userId, every cart is guarded by its own monitor so
+ * updates of one user are atomic and never block other users. Items of a cart are indexed by productId, merging
+ * an item is O(1).
+ * <p>
+ * Memory is bounded: carts idle for longer than {@code cart.store.idle-timeout-seconds} are evicted, as are the
+ * least recently used carts once there are more than {@code cart.store.max-carts}, and a cart holds at most
+ * {@code cart.store.max-items-per-cart} distinct products.
+ * <p>
+ * The default store, see {@link MappedCartStore} for one that survives restarts.
+ */
+@Slf4j
 @Component
+@ConditionalOnProperty(name = "cart.store.type", havingValue = "memory", matchIfMissing = true)
 public class MemoryCartStore implements CartStore {
-    
-    private final Map<String, Map<String, Integer>> carts = new HashMap<>();
+
+    private final Map<String, UserCart> carts = new ConcurrentHashMap<>();
+
+    private final int maxCarts;
+
+    private final int maxItemsPerCart;
+
+    private final long idleTimeoutNanos;
+
+    private final ScheduledExecutorService evictor;
+
+    private final AtomicBoolean evictionScheduled = new AtomicBoolean();
+
+    public MemoryCartStore(@Value("${cart.store.max-carts:100000}") int maxCarts,
+                           @Value("${cart.store.max-items-per-cart:500}") int maxItemsPerCart,
+                           @Value("${cart.store.idle-timeout-seconds:1800}") long idleTimeoutSeconds) {
+        this.maxCarts = maxCarts;
+        this.maxItemsPerCart = maxItemsPerCart;
+        this.idleTimeoutNanos = TimeUnit.SECONDS.toNanos(idleTimeoutSeconds);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cart-store-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, Math.min(60, idleTimeoutSeconds / 4));
+        evictor.scheduleWithFixedDelay(this::evict, period, period, TimeUnit.SECONDS);
+    }
+
     @Override
     public void addItem(String userId, String productId, Integer quantity) {
-        carts.computeIfAbsent(userId, k -> new HashMap<>())
-                .merge(productId, quantity, Integer::sum);
+        while (true) {
+            UserCart cart = carts.computeIfAbsent(userId, k -> new UserCart());
+            // a cart evicted or emptied between the lookup and the update is retired, retry with a fresh one
+            if (cart.add(productId, quantity, maxItemsPerCart)) {
+                break;
+            }
+        }
+        if (carts.size() > maxCarts && evictionScheduled.compareAndSet(false, true)) {
+            evictor.execute(this::evict);
+        }
     }
-    
+
     @Override
     public void emptyCart(String userId) {
-        carts.remove(userId);
+        UserCart cart = carts.remove(userId);
+        if (cart != null) {
+            cart.retire();
+        }
     }
-    
+
     @Override
     public Cart getCart(String userId) {
-        Map<String, Integer> userCart = carts.getOrDefault(userId, new HashMap<>());
-        List<CartItem> items = new ArrayList<>();
-        for (Map.Entry<String, Integer> entry : userCart.entrySet()) {
-            items.add(new CartItem(entry.getKey(), entry.getValue()));
+        UserCart cart = carts.get(userId);
+        return new Cart(userId, cart == null ? new ArrayList<>() : cart.snapshot());
+    }
+
+    public int size() {
+        return carts.size();
+    }
+
+    /**
+     * Drops idle carts, then the least recently used ones while the store is above its bound.
+     */
+    void evict() {
+        evictionScheduled.set(false);
+        long idleBefore = System.nanoTime() - idleTimeoutNanos;
+        int evicted = 0;
+        for (Map.Entry<String, UserCart> entry : carts.entrySet()) {
+            if (entry.getValue().lastAccess - idleBefore < 0 && remove(entry.getKey(), entry.getValue(), idleBefore)) {
+                evicted++;
+            }
+        }
+        int excess = carts.size() - maxCarts;
+        if (excess > 0) {
+            List<Map.Entry<String, UserCart>> entries = new ArrayList<>(carts.entrySet());
+            entries.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+            for (int i = 0; i < entries.size() && excess > 0; i++) {
+                Map.Entry<String, UserCart> entry = entries.get(i);
+                if (remove(entry.getKey(), entry.getValue(), Long.MAX_VALUE)) {
+                    evicted++;
+                    excess--;
+                }
+            }
+        }
+        if (evicted > 0) {
+            log.info("Evicted {} carts, {} carts left", evicted, carts.size());
+        }
+    }
+
+    private boolean remove(String userId, UserCart cart, long idleBefore) {
+        // retire first so a concurrent add retries on a new cart instead of writing into the removed one
+        if (cart.retireIfIdle(idleBefore)) {
+            carts.remove(userId, cart);
+            return true;
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void close() {
+        evictor.shutdownNow();
+    }
+
+    private static final class UserCart {
+
+        private final Map<String, CartItem> items = new LinkedHashMap<>();
+
+        private volatile long lastAccess = System.nanoTime();
+
+        private boolean retired;
+
+        synchronized boolean add(String productId, Integer quantity, int maxItems) {
+            if (retired) {
+                return false;
+            }
+            lastAccess = System.nanoTime();
+            CartItem item = items.get(productId);
+            if (item != null) {
+                item.setQuantity(Math.addExact(item.getQuantity(), quantity));
+            } else if (items.size() >= maxItems) {
+                throw new IllegalStateException("Cart is full, at most " + maxItems + " products");
+            } else {
+                items.put(productId, new CartItem(productId, quantity));
+            }
+            return true;
+        }
+
+        synchronized List<CartItem> snapshot() {
+            lastAccess = System.nanoTime();
+            List<CartItem> snapshot = new ArrayList<>(items.size());
+            for (CartItem item : items.values()) {
+                snapshot.add(new CartItem(item.getProductId(), item.getQuantity()));
+            }
+            return snapshot;
+        }
+
+        synchronized void retire() {
+            retired = true;
+        }
+
+        /**
+         * Retires the cart when it was last used before {@code idleBefore}, Long.MAX_VALUE retires it anyway.
+         */
+        synchronized boolean retireIfIdle(long idleBefore) {
+            if (!retired && (idleBefore == Long.MAX_VALUE || lastAccess - idleBefore < 0)) {
+                retired = true;
+                return true;
+            }
+            return false;
         }
-        
-        return new Cart(userId, items);
     }
 }
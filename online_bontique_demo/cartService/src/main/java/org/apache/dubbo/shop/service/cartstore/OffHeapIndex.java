@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.service.cartstore;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongPredicate;
+
+/**
+ * Open addressing hash table from userId to cart log location, kept in a direct buffer so it costs the GC nothing.
+ * <p>
+ * A slot is {@code [long hash][long location]}, hash 0 marks a free slot and location -1 a removed one. Only the
+ * 64-bit hash of the userId is stored, callers pass a predicate that checks the userId stored at a location to tell
+ * colliding users apart.
+ */
+final class OffHeapIndex {
+
+    static final long NONE = -1;
+
+    private static final int SLOT = 16;
+
+    private ByteBuffer slots;
+
+    private int mask;
+
+    private int size;
+
+    private int used;
+
+    OffHeapIndex(int initialCapacity) {
+        allocate(Integer.highestOneBit(Math.max(16, initialCapacity - 1) << 1));
+    }
+
+    static long hash(String userId) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : userId.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ b) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    synchronized long get(long hash, LongPredicate owner) {
+        for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+            long slotHash = slots.getLong(slot * SLOT);
+            if (slotHash == 0) {
+                return NONE;
+            }
+            long location = slots.getLong(slot * SLOT + 8);
+            if (slotHash == hash && location != NONE && owner.test(location)) {
+                return location;
+            }
+        }
+    }
+
+    /**
+     * Points the user at a new location, returns the previous one or {@link #NONE}.
+     */
+    synchronized long put(long hash, long location, LongPredicate owner) {
+        int free = -1;
+        for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+            long slotHash = slots.getLong(slot * SLOT);
+            long previous = slots.getLong(slot * SLOT + 8);
+            if (slotHash == 0) {
+                if (free < 0) {
+                    free = slot;
+                    used++;
+                }
+                break;
+            }
+            if (previous == NONE) {
+                if (free < 0) {
+                    free = slot;
+                }
+            } else if (slotHash == hash && owner.test(previous)) {
+                slots.putLong(slot * SLOT + 8, location);
+                return previous;
+            }
+        }
+        slots.putLong(free * SLOT, hash);
+        slots.putLong(free * SLOT + 8, location);
+        size++;
+        if (used > (mask + 1) / 2) {
+            resize();
+        }
+        return NONE;
+    }
+
+    /**
+     * Removes the user, returns its location or {@link #NONE}.
+     */
+    synchronized long remove(long hash, LongPredicate owner) {
+        for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+            long slotHash = slots.getLong(slot * SLOT);
+            if (slotHash == 0) {
+                return NONE;
+            }
+            long location = slots.getLong(slot * SLOT + 8);
+            if (slotHash == hash && location != NONE && owner.test(location)) {
+                slots.putLong(slot * SLOT + 8, NONE);
+                size--;
+                return location;
+            }
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void resize() {
+        ByteBuffer old = this.slots;
+        // grow only when live entries fill the table, otherwise rehashing just drops the removed slots
+        allocate(size > (mask + 1) / 4 ? (mask + 1) * 2 : mask + 1);
+        for (int offset = 0; offset < old.capacity(); offset += SLOT) {
+            long hash = old.getLong(offset);
+            long location = old.getLong(offset + 8);
+            if (hash != 0 && location != NONE) {
+                int slot = (int) hash & mask;
+                while (slots.getLong(slot * SLOT) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots.putLong(slot * SLOT, hash);
+                slots.putLong(slot * SLOT + 8, location);
+                used++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        slots = ByteBuffer.allocateDirect(capacity * SLOT);
+        mask = capacity - 1;
+        used = 0;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.service.cartstore;
+
+import org.apache.dubbo.shop.common.pojo.Cart;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contended addItem/getCart on {@link MemoryCartStore}. {@code users} controls how many threads share a cart:
+ * with 1 user every thread hits the same cart, with 10000 users contention is spread over the whole map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class MemoryCartStoreBenchmark {
+
+    private static final int PRODUCTS = 9;
+
+    @Param({"1", "100", "10000"})
+    private int users;
+
+    private MemoryCartStore store;
+
+    private String[] userIds;
+
+    private String[] productIds;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        store = new MemoryCartStore(Integer.MAX_VALUE, PRODUCTS, 3600);
+        userIds = new String[users];
+        for (int i = 0; i < users; i++) {
+            userIds[i] = "user-" + i;
+        }
+        productIds = new String[PRODUCTS];
+        for (int i = 0; i < PRODUCTS; i++) {
+            productIds[i] = "product-" + i;
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        store.close();
+    }
+
+    private String randomUser() {
+        return userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(6)
+    public void addItem() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        store.addItem(randomUser(), productIds[random.nextInt(PRODUCTS)], 1);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public Cart getCart() {
+        return store.getCart(randomUser());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MemoryCartStoreBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -24,7 +24,6 @@ import org.apache.dubbo.shop.common.dto.request.ChargeRequest;
 import org.apache.dubbo.shop.common.dto.request.CurrencyConversionRequest;
 import org.apache.dubbo.shop.common.dto.request.EmptyCartRequest;
 import org.apache.dubbo.shop.common.dto.request.GetCartRequest;
-import org.apache.dubbo.shop.common.dto.request.GetProductRequest;
 import org.apache.dubbo.shop.common.dto.request.GetQuoteRequest;
 import org.apache.dubbo.shop.common.dto.request.PlaceOrderRequest;
 import org.apache.dubbo.shop.common.dto.request.ShipOrderRequest;
@@ -40,6 +39,7 @@ import org.apache.dubbo.shop.common.pojo.Money;
 import org.apache.dubbo.shop.common.pojo.OrderItem;
 import org.apache.dubbo.shop.common.pojo.OrderResult;
 import org.apache.dubbo.shop.common.pojo.Product;
+import org.apache.dubbo.shop.common.utils.AsyncRpc;
 import org.apache.dubbo.shop.common.utils.MoneyUtils;
 import org.apache.dubbo.shop.service.CartService;
 import org.apache.dubbo.shop.service.CheckoutService;
@@ -55,6 +55,8 @@ import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @DubboService
 @Service
@@ -76,35 +78,98 @@ public class CheckoutServiceImpl implements CheckoutService {
 
     @Override
     public PlaceOrderResponse placeOrder(PlaceOrderRequest request) {
+        try {
+            return placeOrderAsync(request).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The checkout as a graph of async calls instead of a sequence:
+     * <pre>
+     * getCart -+-> getProducts -> convertBatch --+-> charge -> shipOrder -> emptyCart -> response
+     *          +-> getQuote -> convert ----------+                                  \-> sendOrderConfirmation
+     * </pre>
+     * Pricing the items and quoting shipping run concurrently, nothing is charged before both are done and nothing
+     * is shipped before the charge went through. The confirmation email is not awaited and its failure does not
+     * fail the order.
+     */
+    @Override
+    public CompletableFuture<PlaceOrderResponse> placeOrderAsync(PlaceOrderRequest request) {
         log.info("[PlaceOrder] user_id={} user_currency={}", request.getUserId(), request.getUserCurrency());
         String orderId = UUID.randomUUID().toString();
+        String currency = request.getUserCurrency();
+        Address address = request.getAddress();
+
+        CompletableFuture<List<CartItem>> cartItems = AsyncRpc.send(() -> cartService.getCart(request.getUserId()))
+                .thenApply(Cart::getItems);
+        CompletableFuture<List<OrderItem>> orderItems = cartItems.thenCompose(items -> prepOrderItemsAsync(items, currency));
+        CompletableFuture<Money> shippingCost = cartItems
+                .thenCompose(items -> AsyncRpc.send(() -> shippingService.getQuote(quoteRequest(address, items))))
+                .thenCompose(quote -> AsyncRpc.send(() -> currencyService.convert(conversionRequest(quote.getCostUsd(), currency))));
+
+        CompletableFuture<OrderPrep> prep = orderItems.thenCombine(shippingCost, (items, shipping) -> {
+            OrderPrep out = new OrderPrep();
+            out.setShippingCostLocalized(shipping);
+            out.setOrderItems(items);
+            out.setCartItems(cartItems.join());
+            return out;
+        });
+
+        CompletableFuture<String> trackingId = prep
+                .thenCompose(p -> AsyncRpc.send(() -> paymentService.charge(chargeRequest(total(currency, p), request.getCreditCard(), orderId))))
+                .thenCompose(charge -> {
+                    log.info("payment went through (transaction_id: {})", charge.getTransactionId());
+                    return AsyncRpc.send(() -> shippingService.shipOrder(shipRequest(address, prep.join().getCartItems())));
+                })
+                .thenApply(ShipOrderResponse::getTrackingId);
+
+        return trackingId
+                .thenCompose(id -> AsyncRpc.send(() -> {
+                    cartService.emptyCart(request.getUserId());
+                    return null;
+                }))
+                .thenApply(ignored -> {
+                    OrderPrep p = prep.join();
+                    OrderResult orderResult = new OrderResult();
+                    orderResult.setOrderId(orderId);
+                    orderResult.setShippingTrackingId(trackingId.join());
+                    orderResult.setShippingCost(p.getShippingCostLocalized());
+                    orderResult.setShippingAddress(address);
+                    orderResult.setItems(p.getOrderItems());
+
+                    AsyncRpc.send(() -> emailService.sendOrderConfirmation(request.getEmail(), orderId))
+                            .whenComplete((sent, t) -> {
+                                if (t != null) {
+                                    log.warn("Failed to send confirmation of order {}", orderId, t);
+                                }
+                            });
+                    return new PlaceOrderResponse(orderResult);
+                });
+    }
 
-        OrderPrep prep = prepareOrderItemsAndShippingQuoteFromCart(request.getUserId(), request.getUserCurrency(), request.getAddress());
-
-        Money total = new Money(request.getUserCurrency(), 0L, 0);
-        total = MoneyUtils.sum(total, prep.getShippingCostLocalized());
-        for (OrderItem item : prep.getOrderItems()) {
-            Money multPrice = MoneyUtils.multiplySlow(item.getCost(), item.getItem().getQuantity());
-            total = MoneyUtils.sum(total, multPrice);
+    private CompletableFuture<List<OrderItem>> prepOrderItemsAsync(List<CartItem> items, String userCurrency) {
+        if (items.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
         }
+        List<String> productIds = new ArrayList<>(items.size());
+        for (CartItem item : items) {
+            productIds.add(item.getProductId());
+        }
+        return AsyncRpc.send(() -> productCatalogService.getProducts(productIds))
+                .thenCompose(products -> {
+                    List<Money> pricesUsd = pricesUsd(productIds, products);
+                    return AsyncRpc.send(() -> currencyService.convertBatch(pricesUsd, userCurrency));
+                })
+                .thenApply(prices -> orderItems(items, prices));
+    }
 
-        String txId = changeCard(total, request.getCreditCard());
-        log.info("payment went through (transaction_id: {})", txId);
-
-        String shipmentTrackingId = shipOrder(request.getAddress(), prep.getCartItems());
-
-        emptyUserCart(request.getUserId());
-
-        OrderResult orderResult = new OrderResult();
-        orderResult.setOrderId(orderId);
-        orderResult.setShippingTrackingId(shipmentTrackingId);
-        orderResult.setShippingCost(prep.getShippingCostLocalized());
-        orderResult.setShippingAddress(request.getAddress());
-        orderResult.setItems(prep.getOrderItems());
-
-        sendOrderConfirmation(request.getEmail(), orderResult);
-
-        return new PlaceOrderResponse(orderResult);
+    private Money total(String currency, OrderPrep prep) {
+        return MoneyUtils.sumOfProducts(currency, prep.getOrderItems(), prep.getShippingCostLocalized());
     }
 
     @Override
@@ -124,11 +189,7 @@ public class CheckoutServiceImpl implements CheckoutService {
 
     @Override
     public Money quoteShipping(Address address, List<CartItem> items) {
-        GetQuoteRequest request = new GetQuoteRequest();
-        request.setAddress(address);
-        request.setItems(items);
-
-        GetQuoteResponse response = shippingService.getQuote(request);
+        GetQuoteResponse response = shippingService.getQuote(quoteRequest(address, items));
         return response.getCostUsd();
     }
 
@@ -148,16 +209,37 @@ public class CheckoutServiceImpl implements CheckoutService {
     @Override
     public List<OrderItem> prepOrderItems(List<CartItem> items, String userCurrency) {
         List<OrderItem> out = new ArrayList<>();
+        if (items.isEmpty()) {
+            return out;
+        }
+        // one catalog and one currency call for the whole cart instead of two per item
+        List<String> productIds = new ArrayList<>(items.size());
         for (CartItem item : items) {
-            GetProductRequest request = new GetProductRequest();
-            request.setId(item.getProductId());
+            productIds.add(item.getProductId());
+        }
+        List<Product> products = productCatalogService.getProducts(productIds);
+        List<Money> prices = currencyService.convertBatch(pricesUsd(productIds, products), userCurrency);
+        return orderItems(items, prices);
+    }
 
-            Product product = productCatalogService.getProduct(request);
-            Money price = covertCurrency(product.getPriceUsd(), userCurrency);
+    private static List<Money> pricesUsd(List<String> productIds, List<Product> products) {
+        List<Money> pricesUsd = new ArrayList<>(products.size());
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            if (product == null) {
+                throw new IllegalStateException("Product " + productIds.get(i) + " in cart not found");
+            }
+            pricesUsd.add(product.getPriceUsd());
+        }
+        return pricesUsd;
+    }
 
+    private static List<OrderItem> orderItems(List<CartItem> items, List<Money> prices) {
+        List<OrderItem> out = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
             OrderItem orderItem = new OrderItem();
-            orderItem.setCost(price);
-            orderItem.setItem(item);
+            orderItem.setCost(prices.get(i));
+            orderItem.setItem(items.get(i));
 
             out.add(orderItem);
         }
@@ -166,20 +248,12 @@ public class CheckoutServiceImpl implements CheckoutService {
 
     @Override
     public Money covertCurrency(Money from, String toCurrency) {
-        CurrencyConversionRequest request = new CurrencyConversionRequest();
-        request.setFrom(from);
-        request.setToCode(toCurrency);
-
-        return currencyService.convert(request);
+        return currencyService.convert(conversionRequest(from, toCurrency));
     }
 
     @Override
     public String changeCard(Money amount, CreditCardInfo paymentInfo) {
-        ChargeRequest request = new ChargeRequest();
-        request.setAmount(amount);
-        request.setCreditCard(paymentInfo);
-
-        ChargeResponse response = paymentService.charge(request);
+        ChargeResponse response = paymentService.charge(chargeRequest(amount, paymentInfo, null));
         return response.getTransactionId();
     }
 
@@ -190,11 +264,39 @@ public class CheckoutServiceImpl implements CheckoutService {
 
     @Override
     public String shipOrder(Address address, List<CartItem> items) {
-        ShipOrderRequest request = new ShipOrderRequest();
+        ShipOrderResponse response = shippingService.shipOrder(shipRequest(address, items));
+        return response.getTrackingId();
+    }
+
+    private static GetQuoteRequest quoteRequest(Address address, List<CartItem> items) {
+        GetQuoteRequest request = new GetQuoteRequest();
         request.setAddress(address);
         request.setItems(items);
+        return request;
+    }
 
-        ShipOrderResponse response = shippingService.shipOrder(request);
-        return response.getTrackingId();
+    private static CurrencyConversionRequest conversionRequest(Money from, String toCurrency) {
+        CurrencyConversionRequest request = new CurrencyConversionRequest();
+        request.setFrom(from);
+        request.setToCode(toCurrency);
+        return request;
+    }
+
+    /**
+     * The orderId as idempotency key makes a charge retried by cluster failover a no-op.
+     */
+    private static ChargeRequest chargeRequest(Money amount, CreditCardInfo paymentInfo, String idempotencyKey) {
+        ChargeRequest request = new ChargeRequest();
+        request.setAmount(amount);
+        request.setCreditCard(paymentInfo);
+        request.setIdempotencyKey(idempotencyKey);
+        return request;
+    }
+
+    private static ShipOrderRequest shipRequest(Address address, List<CartItem> items) {
+        ShipOrderRequest request = new ShipOrderRequest();
+        request.setAddress(address);
+        request.setItems(items);
+        return request;
     }
 }
@@ -32,4 +32,9 @@ public class ChargeRequest implements Serializable {
     
     private Money amount;
     private CreditCardInfo creditCard;
+    
+    /**
+     * 幂等键, 同一键的重复扣款只执行一次, 为空则不去重
+     */
+    private String idempotencyKey;
 }
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.shop.common.utils;
+
+import org.apache.dubbo.rpc.RpcContext;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fans out Dubbo calls from the thread serving a request.
+ */
+public final class AsyncRpc {
+
+    private AsyncRpc() {
+    }
+
+    /**
+     * Sends one RPC without waiting for its result. The callable must return the result of the Dubbo call itself,
+     * asyncCall takes any other non-null value as an already completed result.
+     */
+    public static <T> CompletableFuture<T> send(Callable<T> call) {
+        return RpcContext.getContext().asyncCall(call);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.common.utils;
+
+import org.apache.dubbo.shop.common.pojo.Money;
+
+/**
+ * 金额累加器
+ * <p>
+ * Mutable running total in one currency, kept as primitive units and nanos so adding a line does not allocate.
+ * Overflowing a long of units throws {@link ArithmeticException}. Not thread safe.
+ */
+public final class MoneyAccumulator {
+
+    private final String currencyCode;
+
+    private long units;
+
+    private long nanos;
+
+    public MoneyAccumulator(String currencyCode) {
+        this.currencyCode = currencyCode;
+    }
+
+    public MoneyAccumulator add(Money money) {
+        check(money);
+        return add(money.getUnits(), money.getNanos());
+    }
+
+    /**
+     * Adds {@code price * quantity} in O(1).
+     */
+    public MoneyAccumulator addProduct(Money price, long quantity) {
+        check(price);
+        long productNanos = Math.multiplyExact((long) price.getNanos(), quantity);
+        return add(Math.multiplyExact(price.getUnits(), quantity), productNanos);
+    }
+
+    public MoneyAccumulator reset() {
+        units = 0;
+        nanos = 0;
+        return this;
+    }
+
+    public String getCurrencyCode() {
+        return currencyCode;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public int getNanos() {
+        return (int) nanos;
+    }
+
+    public Money toMoney() {
+        return new Money(currencyCode, units, (int) nanos);
+    }
+
+    private MoneyAccumulator add(long addUnits, long addNanos) {
+        long sumNanos = nanos + addNanos % MoneyUtils.NANOS_PER_UNIT;
+        long sumUnits = Math.addExact(Math.addExact(units, addUnits), addNanos / MoneyUtils.NANOS_PER_UNIT);
+        sumUnits = Math.addExact(sumUnits, sumNanos / MoneyUtils.NANOS_PER_UNIT);
+        sumNanos %= MoneyUtils.NANOS_PER_UNIT;
+        // units and nanos must carry the same sign
+        if (sumUnits > 0 && sumNanos < 0) {
+            sumUnits--;
+            sumNanos += MoneyUtils.NANOS_PER_UNIT;
+        } else if (sumUnits < 0 && sumNanos > 0) {
+            sumUnits++;
+            sumNanos -= MoneyUtils.NANOS_PER_UNIT;
+        }
+        units = sumUnits;
+        nanos = sumNanos;
+        return this;
+    }
+
+    private void check(Money money) {
+        if (!MoneyUtils.isValid(money)) {
+            throw new IllegalArgumentException("Invalid money value");
+        } else if (!currencyCode.equals(money.getCurrencyCode())) {
+            throw new IllegalArgumentException("Mismatching currency codes");
+        }
+    }
+}
@@ -18,9 +18,14 @@
 package org.apache.dubbo.shop.common.utils;
 
 import org.apache.dubbo.shop.common.pojo.Money;
+import org.apache.dubbo.shop.common.pojo.OrderItem;
+
+import java.util.List;
 
 public class MoneyUtils {
 
+    public static final long NANOS_PER_UNIT = 1_000_000_000L;
+
     public static Money sum(Money a, Money b) {
         if (!isValid(a) || !isValid(b)) {
             throw new IllegalArgumentException("Invalid money value");
@@ -51,6 +56,31 @@ public class MoneyUtils {
         money.setUnits(0L);
         return money;
     }
+    /**
+     * {@code money * multiplier} in O(1), throws {@link ArithmeticException} when the units overflow a long.
+     */
+    public static Money multiply(Money money, long multiplier) {
+        return new MoneyAccumulator(money.getCurrencyCode()).addProduct(money, multiplier).toMoney();
+    }
+
+    /**
+     * Sum of cost * quantity over the items plus {@code extra} in one pass, {@code extra} may be null.
+     */
+    public static Money sumOfProducts(String currencyCode, List<OrderItem> items, Money extra) {
+        MoneyAccumulator total = new MoneyAccumulator(currencyCode);
+        if (extra != null) {
+            total.add(extra);
+        }
+        for (OrderItem item : items) {
+            total.addProduct(item.getCost(), item.getItem().getQuantity());
+        }
+        return total.toMoney();
+    }
+
+    /**
+     * @deprecated allocates and validates once per unit of multiplier, use {@link #multiply(Money, long)}
+     */
+    @Deprecated
     public static Money multiplySlow(Money money, int multiplier) {
         Money result = money;
         for (int i = 1; i < multiplier; i++) {
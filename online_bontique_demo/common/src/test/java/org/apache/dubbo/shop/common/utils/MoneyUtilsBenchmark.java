@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.common.utils;
+
+import org.apache.dubbo.shop.common.pojo.CartItem;
+import org.apache.dubbo.shop.common.pojo.Money;
+import org.apache.dubbo.shop.common.pojo.OrderItem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MoneyUtils#multiplySlow} against the O(1) {@link MoneyUtils#multiply} for one line, and the old
+ * sum-of-multiplySlow loop against {@link MoneyUtils#sumOfProducts} for an order of {@code lines} lines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyUtilsBenchmark {
+
+    @Param({"1", "10", "10000"})
+    private int quantity;
+
+    @Param({"10"})
+    private int lines;
+
+    private final Money price = new Money("USD", 19L, 990_000_000);
+
+    private final Money shipping = new Money("USD", 8L, 990_000_000);
+
+    private List<OrderItem> order;
+
+    @Setup
+    public void setup() {
+        order = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            order.add(new OrderItem(new CartItem("product-" + i, quantity), new Money("USD", (long) i, 990_000_000)));
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public Money multiplySlow() {
+        return MoneyUtils.multiplySlow(price, quantity);
+    }
+
+    @Benchmark
+    public Money multiply() {
+        return MoneyUtils.multiply(price, quantity);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public Money orderTotalSlow() {
+        Money total = MoneyUtils.sum(new Money("USD", 0L, 0), shipping);
+        for (OrderItem item : order) {
+            total = MoneyUtils.sum(total, MoneyUtils.multiplySlow(item.getCost(), item.getItem().getQuantity()));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Money orderTotal() {
+        return MoneyUtils.sumOfProducts("USD", order, shipping);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyUtilsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
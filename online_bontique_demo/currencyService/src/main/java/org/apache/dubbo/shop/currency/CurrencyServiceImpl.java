@@ -24,54 +24,110 @@ import org.apache.dubbo.shop.common.pojo.Empty;
 import org.apache.dubbo.shop.common.pojo.Money;
 import org.apache.dubbo.shop.service.CurrencyService;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.util.Map;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Converts with a {@link RateTable} loaded once from the bundled currency_conversion.json, or from
+ * {@code currency.rates-file} when set, which is then polled every {@code currency.reload-interval-seconds} and
+ * swapped in on change.
+ */
 @Slf4j
 @DubboService
 @Service
 public class CurrencyServiceImpl implements CurrencyService {
     
-    private Map<String, Double> loadCurrencyData() {
+    private final Path ratesFile;
+    
+    private volatile RateTable rates;
+    
+    private volatile FileTime lastModified;
+    
+    private final ScheduledExecutorService reloader;
+    
+    public CurrencyServiceImpl(@Value("${currency.rates-file:}") String ratesFile,
+                               @Value("${currency.reload-interval-seconds:10}") long reloadIntervalSeconds) throws IOException {
+        this.ratesFile = ratesFile.isEmpty() ? null : Paths.get(ratesFile);
+        if (this.ratesFile == null) {
+            try (InputStream in = new ClassPathResource("currency_conversion.json").getInputStream()) {
+                rates = RateTable.parse(in);
+            }
+            reloader = null;
+        } else {
+            lastModified = Files.getLastModifiedTime(this.ratesFile);
+            try (InputStream in = Files.newInputStream(this.ratesFile)) {
+                rates = RateTable.parse(in);
+            }
+            reloader = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "currency-rates-reloader");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reloader.scheduleWithFixedDelay(this::reload, reloadIntervalSeconds, reloadIntervalSeconds, TimeUnit.SECONDS);
+        }
+        log.info("Loaded rates of {} currencies", rates.codes().size());
+    }
+    
+    /**
+     * Swaps in the rates file when it changed, a broken file keeps the current rates.
+     */
+    void reload() {
         try {
-            ClassPathResource resource = new ClassPathResource("currency_conversion.json");
-            byte[] jsonData = resource.getInputStream().readAllBytes();
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.readValue(jsonData, Map.class);
-        } catch (IOException e) {
-            log.error("Failed to load currency data", e);
-            throw new RuntimeException("Failed to load currency data", e);
+            FileTime modified = Files.getLastModifiedTime(ratesFile);
+            if (modified.equals(lastModified)) {
+                return;
+            }
+            try (InputStream in = Files.newInputStream(ratesFile)) {
+                rates = RateTable.parse(in);
+            }
+            lastModified = modified;
+            log.info("Reloaded rates of {} currencies from {}", rates.codes().size(), ratesFile);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to reload currency data, keeping the current rates", e);
         }
     }
+    
     @Override
     public GetSupportedCurrenciesResponse getSupportedCurrencies(Empty request) {
-        Map<String, Double> currencies = loadCurrencyData();
         GetSupportedCurrenciesResponse response = new GetSupportedCurrenciesResponse();
-        response.setCurrencyCodes(currencies.keySet().stream().toList());
+        response.setCurrencyCodes(rates.codes());
         return response;
     }
     
     @Override
     public Money convert(CurrencyConversionRequest request) {
-        Map<String, Double> currencies = loadCurrencyData();
-        
-        Double fromCurrencyRate = currencies.get(request.getFrom().getCurrencyCode());
-        Double toCurrencyRate = currencies.get(request.getToCode());
-        if (fromCurrencyRate == null || toCurrencyRate == null) {
-            throw new RuntimeException("Unsupported currency code");
+        return rates.convert(request.getFrom(), request.getToCode());
+    }
+    
+    @Override
+    public List<Money> convertBatch(List<Money> from, String toCode) {
+        RateTable rates = this.rates;
+        List<Money> converted = new ArrayList<>(from.size());
+        for (Money money : from) {
+            converted.add(rates.convert(money, toCode));
+        }
+        return converted;
+    }
+    
+    @PreDestroy
+    public void close() {
+        if (reloader != null) {
+            reloader.shutdownNow();
         }
-        Long totalNanos = request.getFrom().getUnits() * 1_000_000_000 + request.getFrom().getNanos();
-        double convertedNanos = totalNanos * toCurrencyRate / fromCurrencyRate;
-        
-        Money response = new Money();
-        response.setCurrencyCode(request.getToCode());
-        response.setUnits((long) (convertedNanos / 1_000_000_000L));
-        response.setNanos((int) (convertedNanos % 1_000_000_000L));
-        return response;
     }
 }
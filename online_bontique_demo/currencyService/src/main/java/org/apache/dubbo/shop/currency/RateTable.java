@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.currency;
+
+import org.apache.dubbo.shop.common.pojo.Money;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 汇率表
+ * <p>
+ * Immutable table of EUR based rates, stored as fixed-point longs with 9 decimals in an array indexed by the
+ * three letter currency code, so a lookup neither hashes nor boxes. Conversion is exact integer arithmetic on
+ * the amount in nanos, rounded half up.
+ */
+final class RateTable {
+
+    static final long NANOS_PER_UNIT = 1_000_000_000L;
+
+    private static final int RATE_SCALE = 9;
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            .build();
+
+    private final long[] rates = new long[26 * 26 * 26];
+
+    private final List<String> codes;
+
+    RateTable(Map<String, BigDecimal> rates) {
+        List<String> codes = new ArrayList<>(rates.size());
+        for (Map.Entry<String, BigDecimal> entry : new TreeMap<>(rates).entrySet()) {
+            int index = index(entry.getKey());
+            if (index < 0 || entry.getValue().signum() <= 0) {
+                throw new IllegalArgumentException("Invalid rate " + entry.getValue() + " for " + entry.getKey());
+            }
+            this.rates[index] = entry.getValue().setScale(RATE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            codes.add(entry.getKey());
+        }
+        this.codes = Collections.unmodifiableList(codes);
+    }
+
+    static RateTable parse(InputStream in) throws IOException {
+        return new RateTable(MAPPER.readValue(in, MAPPER.getTypeFactory().constructMapType(TreeMap.class, String.class, BigDecimal.class)));
+    }
+
+    List<String> codes() {
+        return codes;
+    }
+
+    Money convert(Money from, String toCode) {
+        long fromRate = rate(from.getCurrencyCode());
+        long toRate = rate(toCode);
+        if (fromRate == 0 || toRate == 0) {
+            throw new IllegalArgumentException("Unsupported currency code");
+        }
+        long nanos = Math.addExact(Math.multiplyExact(from.getUnits(), NANOS_PER_UNIT), from.getNanos());
+        long converted = fromRate == toRate ? nanos : convertNanos(nanos, fromRate, toRate);
+        return new Money(toCode, converted / NANOS_PER_UNIT, (int) (converted % NANOS_PER_UNIT));
+    }
+
+    private long rate(String code) {
+        int index = index(code);
+        return index < 0 ? 0 : rates[index];
+    }
+
+    /**
+     * nanos * toRate / fromRate rounded half up, the product is kept in 128 bits so no amount loses precision.
+     */
+    static long convertNanos(long nanos, long fromRate, long toRate) {
+        long magnitude = Math.abs(nanos);
+        long hi = Math.multiplyHigh(magnitude, toRate);
+        long lo = magnitude * toRate;
+        if (Long.compareUnsigned(hi, fromRate) >= 0) {
+            throw new ArithmeticException("Converted amount overflows");
+        }
+        long quotient = divide(hi, lo, fromRate);
+        long remainder = lo - quotient * fromRate;
+        if (remainder >= fromRate - remainder) {
+            quotient++;
+        }
+        if (quotient < 0) {
+            throw new ArithmeticException("Converted amount overflows");
+        }
+        return nanos < 0 ? -quotient : quotient;
+    }
+
+    /**
+     * Unsigned division of the 128 bit value hi:lo by a positive divisor, hi must be below the divisor.
+     * Knuth's algorithm D on 32 bit digits, as in Hacker's Delight divlu.
+     */
+    private static long divide(long hi, long lo, long divisor) {
+        int shift = Long.numberOfLeadingZeros(divisor);
+        if (shift > 0) {
+            divisor <<= shift;
+            hi = hi << shift | lo >>> (64 - shift);
+            lo <<= shift;
+        }
+        long divisorHi = divisor >>> 32;
+        long divisorLo = divisor & 0xFFFFFFFFL;
+        long lo1 = lo >>> 32;
+        long lo0 = lo & 0xFFFFFFFFL;
+
+        long q1 = Long.divideUnsigned(hi, divisorHi);
+        long r = hi - q1 * divisorHi;
+        while (q1 >>> 32 != 0 || Long.compareUnsigned(q1 * divisorLo, r << 32 | lo1) > 0) {
+            q1--;
+            r += divisorHi;
+            if (r >>> 32 != 0) {
+                break;
+            }
+        }
+        long mid = (hi << 32 | lo1) - q1 * divisor;
+
+        long q0 = Long.divideUnsigned(mid, divisorHi);
+        r = mid - q0 * divisorHi;
+        while (q0 >>> 32 != 0 || Long.compareUnsigned(q0 * divisorLo, r << 32 | lo0) > 0) {
+            q0--;
+            r += divisorHi;
+            if (r >>> 32 != 0) {
+                break;
+            }
+        }
+        return q1 << 32 | q0;
+    }
+
+    /**
+     * AAA..ZZZ to 0..17575, -1 for anything else.
+     */
+    private static int index(String code) {
+        if (code == null || code.length() != 3) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = 0; i < 3; i++) {
+            int c = code.charAt(i) - 'A';
+            if (c < 0 || c >= 26) {
+                return -1;
+            }
+            index = index * 26 + c;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.currency;
+
+import org.apache.dubbo.shop.common.pojo.Money;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting one price: {@code legacy} is the previous implementation, parsing currency_conversion.json on every
+ * call and doing the math in double, {@code rateTable} is the preloaded {@link RateTable}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrencyConversionBenchmark {
+
+    private final Money price = new Money("USD", 19L, 990_000_000);
+
+    private RateTable rates;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream in = rates()) {
+            rates = RateTable.parse(in);
+        }
+    }
+
+    @Benchmark
+    public Money legacy() throws IOException {
+        Map<String, Double> currencies;
+        try (InputStream in = rates()) {
+            currencies = new ObjectMapper().readValue(in.readAllBytes(), Map.class);
+        }
+        Double fromCurrencyRate = currencies.get(price.getCurrencyCode());
+        Double toCurrencyRate = currencies.get("JPY");
+        Long totalNanos = price.getUnits() * 1_000_000_000 + price.getNanos();
+        double convertedNanos = totalNanos * toCurrencyRate / fromCurrencyRate;
+        return new Money("JPY", (long) (convertedNanos / 1_000_000_000L), (int) (convertedNanos % 1_000_000_000L));
+    }
+
+    @Benchmark
+    public Money rateTable() {
+        return rates.convert(price, "JPY");
+    }
+
+    private static InputStream rates() {
+        return CurrencyConversionBenchmark.class.getResourceAsStream("/currency_conversion.json");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CurrencyConversionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
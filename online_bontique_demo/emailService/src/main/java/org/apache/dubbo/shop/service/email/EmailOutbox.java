@@ -0,0 +1,329 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.service.email;
+
+import org.apache.dubbo.shop.service.email.transport.MailMessage;
+import org.apache.dubbo.shop.service.email.transport.MailTransport;
+import org.apache.dubbo.shop.service.email.transport.PartialDeliveryException;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 订单确认邮件发件箱
+ * <p>
+ * {@link #offer(String, String)} only enqueues, a single dispatcher thread drains the bounded queue in batches of
+ * up to {@code email.outbox.batch-size}, renders them against the template bound once per batch and hands the
+ * batch to the {@link MailTransport}. What the transport did not deliver is retried with backoff up to
+ * {@code email.outbox.max-attempts} times, then dropped and counted as failed; messages the transport reports as
+ * delivered are never sent again, and those it reports as refused for good, e.g. an unknown mailbox, are dropped
+ * right away without holding up the rest of the batch.
+ * <p>
+ * An orderId accepted within the last {@code email.outbox.dedupe-seconds} is not queued again, so a retried call
+ * does not send a second confirmation. A dropped confirmation gives up its orderId, so the caller may try again.
+ * When the queue is full the call is rejected rather than blocking the caller.
+ */
+@Slf4j
+@Component
+public class EmailOutbox {
+
+    private final BlockingQueue<OutboundEmail> queue;
+
+    private final int capacity;
+
+    private final int batchSize;
+
+    private final int maxAttempts;
+
+    private final long lingerMillis;
+
+    private final long dedupeNanos;
+
+    private final int maxDedupeEntries;
+
+    private final MailTransport transport;
+
+    private final EmailTemplate template;
+
+    /**
+     * orderId -> accepted at, with the keys in acceptance order for expiry
+     */
+    private final Map<String, Long> accepted = new ConcurrentHashMap<>();
+
+    private final Queue<String> acceptedOrder = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger highWatermark = new AtomicInteger();
+
+    private final AtomicLong acceptedCount = new AtomicLong();
+
+    private final AtomicLong duplicates = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong sent = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong batches = new AtomicLong();
+
+    private volatile long lastBatchMaxDelayMillis;
+
+    private volatile boolean running = true;
+
+    private final Thread dispatcher;
+
+    public EmailOutbox(MailTransport transport,
+                       @Value("${email.outbox.capacity:10000}") int capacity,
+                       @Value("${email.outbox.batch-size:100}") int batchSize,
+                       @Value("${email.outbox.linger-millis:50}") long lingerMillis,
+                       @Value("${email.outbox.max-attempts:3}") int maxAttempts,
+                       @Value("${email.outbox.dedupe-seconds:3600}") long dedupeSeconds,
+                       @Value("${email.outbox.max-dedupe-entries:100000}") int maxDedupeEntries,
+                       @Value("${email.outbox.report-interval-seconds:60}") long reportIntervalSeconds) throws IOException {
+        this.transport = transport;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.maxAttempts = maxAttempts;
+        this.dedupeNanos = TimeUnit.SECONDS.toNanos(dedupeSeconds);
+        this.maxDedupeEntries = maxDedupeEntries;
+        try (InputStream in = new ClassPathResource("templates/order_confirmation.txt").getInputStream()) {
+            this.template = EmailTemplate.compile(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        long reportIntervalNanos = TimeUnit.SECONDS.toNanos(reportIntervalSeconds);
+        this.dispatcher = new Thread(() -> dispatch(reportIntervalNanos), "email-outbox");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Queues a confirmation of the order.
+     *
+     * @return false when the order was already accepted, in which case nothing is queued
+     * @throws IllegalArgumentException when the email or orderId is missing or the email is not a plain address
+     * @throws IllegalStateException when the outbox is full or shutting down
+     */
+    public boolean offer(String email, String orderId) {
+        if (orderId == null || email == null) {
+            throw new IllegalArgumentException("Email and orderId are required");
+        }
+        if (!isPlainAddress(email)) {
+            // rejected here rather than by the transport, where it would fail the batch it is sent with
+            throw new IllegalArgumentException("Invalid email address: " + email);
+        }
+        if (!running) {
+            throw new IllegalStateException("Email outbox is shutting down");
+        }
+        long now = System.nanoTime();
+        Long previous = accepted.putIfAbsent(orderId, now);
+        if (previous != null) {
+            duplicates.incrementAndGet();
+            return false;
+        }
+        if (!queue.offer(new OutboundEmail(orderId, email, now))) {
+            accepted.remove(orderId, now);
+            rejected.incrementAndGet();
+            throw new IllegalStateException("Email outbox is full, " + capacity + " confirmations pending");
+        }
+        acceptedOrder.add(orderId);
+        acceptedCount.incrementAndGet();
+        highWatermark.accumulateAndGet(queue.size(), Math::max);
+        return true;
+    }
+
+    public OutboxStats stats() {
+        return new OutboxStats(queue.size(), capacity, highWatermark.get(), acceptedCount.get(), duplicates.get(),
+                rejected.get(), sent.get(), failed.get(), batches.get(), lastBatchMaxDelayMillis);
+    }
+
+    private void dispatch(long reportIntervalNanos) {
+        List<OutboundEmail> batch = new ArrayList<>(batchSize);
+        long nextReport = System.nanoTime() + reportIntervalNanos;
+        while (running || !queue.isEmpty()) {
+            try {
+                OutboundEmail first = queue.poll(lingerMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    send(batch);
+                    batch.clear();
+                }
+                expireDedupe();
+                if (reportIntervalNanos > 0 && System.nanoTime() - nextReport >= 0) {
+                    log.info("Email outbox {}", stats());
+                    nextReport = System.nanoTime() + reportIntervalNanos;
+                }
+            } catch (InterruptedException e) {
+                // close() interrupts to end the linger early, the loop drains what is left
+                if (!batch.isEmpty()) {
+                    log.error("Email outbox interrupted, dropping {} confirmations", batch.size());
+                    drop(batch);
+                    batch.clear();
+                }
+            } catch (RuntimeException e) {
+                log.error("Email outbox dispatcher failed, dropping {} confirmations", batch.size(), e);
+                drop(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<OutboundEmail> batch) {
+        Map<String, String> shared = new HashMap<>();
+        shared.put("date", LocalDate.now().toString());
+        EmailTemplate bound = template.bind(shared);
+        List<MailMessage> messages = new ArrayList<>(batch.size());
+        Map<String, String> values = new HashMap<>();
+        for (OutboundEmail email : batch) {
+            values.put("orderId", email.getOrderId());
+            values.put("email", email.getRecipient());
+            messages.add(new MailMessage(email.getRecipient(), bound.render(values)));
+        }
+        // the transport is done with the messages before done, all of them delivered except the refused ones
+        int done = 0;
+        int delivered = 0;
+        for (int attempt = 1; done < messages.size(); attempt++) {
+            try {
+                transport.send(messages.subList(done, messages.size()));
+                delivered += messages.size() - done;
+                done = messages.size();
+            } catch (IOException | RuntimeException e) {
+                if (e instanceof PartialDeliveryException) {
+                    PartialDeliveryException partial = (PartialDeliveryException) e;
+                    List<OutboundEmail> refused = new ArrayList<>(partial.getRefused().size());
+                    for (int index : partial.getRefused()) {
+                        OutboundEmail email = batch.get(done + index);
+                        log.error("Mail server refused the confirmation of order {}, dropping it", email.getOrderId());
+                        refused.add(email);
+                    }
+                    drop(refused);
+                    delivered += partial.getProcessed() - refused.size();
+                    done += partial.getProcessed();
+                    if (done == messages.size()) {
+                        break;
+                    }
+                    // progress was made, count the attempts of the rest afresh
+                    attempt = 0;
+                }
+                if (attempt < maxAttempts && running) {
+                    log.warn("Failed to send {} of {} order confirmations, attempt {}",
+                            messages.size() - done, messages.size(), Math.max(attempt, 1), e);
+                    if (backoff(attempt)) {
+                        continue;
+                    }
+                }
+                log.error("Failed to send {} of {} order confirmations after {} attempts",
+                        messages.size() - done, messages.size(), Math.max(attempt, 1), e);
+                sent.addAndGet(delivered);
+                drop(batch.subList(done, batch.size()));
+                return;
+            }
+        }
+        long now = System.nanoTime();
+        long maxDelay = 0;
+        for (OutboundEmail email : batch) {
+            maxDelay = Math.max(maxDelay, now - email.getAcceptedAt());
+        }
+        lastBatchMaxDelayMillis = TimeUnit.NANOSECONDS.toMillis(maxDelay);
+        sent.addAndGet(delivered);
+        batches.incrementAndGet();
+    }
+
+    private static boolean backoff(int attempt) {
+        try {
+            Thread.sleep(100L << Math.min(attempt, 6));
+            return true;
+        } catch (InterruptedException e) {
+            // close() is waiting, give up on the rest of the batch; the flag ends the next poll early
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Counts the confirmations as failed and forgets their orderIds, a later call for the same order is sent.
+     */
+    private void drop(List<OutboundEmail> emails) {
+        failed.addAndGet(emails.size());
+        for (OutboundEmail email : emails) {
+            accepted.remove(email.getOrderId(), email.getAcceptedAt());
+        }
+    }
+
+    private static boolean isPlainAddress(String email) {
+        if (email.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (c == '<' || c == '>' || c == '\r' || c == '\n') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void expireDedupe() {
+        long now = System.nanoTime();
+        String orderId;
+        while ((orderId = acceptedOrder.peek()) != null) {
+            Long at = accepted.get(orderId);
+            if (at != null && now - at < dedupeNanos && accepted.size() <= maxDedupeEntries) {
+                break;
+            }
+            acceptedOrder.poll();
+            if (at != null) {
+                accepted.remove(orderId, at);
+            }
+        }
+    }
+
+    /**
+     * Stops accepting and gives the dispatcher a few seconds to send what is queued.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        dispatcher.interrupt();
+        dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        if (!queue.isEmpty()) {
+            log.warn("Email outbox closed with {} confirmations unsent", queue.size());
+        }
+    }
+}
@@ -22,14 +22,21 @@ import org.apache.dubbo.shop.service.EmailService;
 
 import org.springframework.stereotype.Service;
 
+/**
+ * Acknowledges as soon as the confirmation is queued in the {@link EmailOutbox}, sending happens in the background.
+ */
 @DubboService
 @Service
 public class EmailServiceImpl implements EmailService {
+
+    private final EmailOutbox outbox;
+
+    public EmailServiceImpl(EmailOutbox outbox) {
+        this.outbox = outbox;
+    }
     
     @Override
     public String sendOrderConfirmation(String email, String order) {
-        // 模拟发送订单确认邮件的逻辑
-        System.out.printf("Sending order confirmation to %s for order %s%n", email, order);
-        return "Order confirmation sent successfully!";
+        return outbox.offer(email, order) ? "Order confirmation queued" : "Order confirmation already queued";
     }
 }
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.service.email;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 邮件模板
+ * <p>
+ * A text with {@code {{name}}} placeholders, split into literal and placeholder segments once when compiled.
+ * {@link #bind(Map)} fills in the values shared by a whole batch and returns a smaller template, so rendering each
+ * message only substitutes its own fields.
+ */
+public final class EmailTemplate {
+
+    private final List<String> literals;
+
+    private final List<String> names;
+
+    private EmailTemplate(List<String> literals, List<String> names) {
+        // literals.size() == names.size() + 1, text is literal0 name0 literal1 name1 ... literalN
+        this.literals = literals;
+        this.names = names;
+    }
+
+    public static EmailTemplate compile(String text) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int from = 0;
+        while (true) {
+            int open = text.indexOf("{{", from);
+            int close = open < 0 ? -1 : text.indexOf("}}", open + 2);
+            if (close < 0) {
+                literals.add(text.substring(from));
+                break;
+            }
+            literals.add(text.substring(from, open));
+            names.add(text.substring(open + 2, close).trim());
+            from = close + 2;
+        }
+        return new EmailTemplate(Collections.unmodifiableList(literals), Collections.unmodifiableList(names));
+    }
+
+    /**
+     * Replaces the placeholders found in {@code values}, the others are kept for {@link #render(Map)}.
+     */
+    public EmailTemplate bind(Map<String, String> values) {
+        List<String> boundLiterals = new ArrayList<>();
+        List<String> boundNames = new ArrayList<>();
+        StringBuilder literal = new StringBuilder(literals.get(0));
+        for (int i = 0; i < names.size(); i++) {
+            String value = values.get(names.get(i));
+            if (value != null) {
+                literal.append(value);
+            } else {
+                boundLiterals.add(literal.toString());
+                boundNames.add(names.get(i));
+                literal.setLength(0);
+            }
+            literal.append(literals.get(i + 1));
+        }
+        boundLiterals.add(literal.toString());
+        return new EmailTemplate(Collections.unmodifiableList(boundLiterals), Collections.unmodifiableList(boundNames));
+    }
+
+    /**
+     * Fills in every placeholder, one without a value renders empty.
+     */
+    public String render(Map<String, String> values) {
+        StringBuilder text = new StringBuilder(literals.get(0));
+        for (int i = 0; i < names.size(); i++) {
+            String value = values.get(names.get(i));
+            if (value != null) {
+                text.append(value);
+            }
+            text.append(literals.get(i + 1));
+        }
+        return text.toString();
+    }
+}
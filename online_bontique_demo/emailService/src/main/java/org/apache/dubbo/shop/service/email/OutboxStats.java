@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.service.email;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 发件箱统计快照
+ */
+@Data
+@AllArgsConstructor
+public class OutboxStats {
+
+    /**
+     * 当前排队数
+     */
+    private final int depth;
+
+    private final int capacity;
+
+    /**
+     * 启动以来的最大排队数
+     */
+    private final int highWatermark;
+
+    private final long accepted;
+
+    private final long duplicates;
+
+    /**
+     * 队列满被拒绝的数量
+     */
+    private final long rejected;
+
+    private final long sent;
+
+    /**
+     * 重试耗尽后丢弃的数量
+     */
+    private final long failed;
+
+    private final long batches;
+
+    /**
+     * 上一批中入队到发出的最长时间
+     */
+    private final long lastBatchMaxDelayMillis;
+}
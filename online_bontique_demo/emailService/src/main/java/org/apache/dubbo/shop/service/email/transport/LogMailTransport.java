@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.service.email.transport;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Logs the messages instead of sending them, the default.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "email.transport", havingValue = "log", matchIfMissing = true)
+public class LogMailTransport implements MailTransport {
+
+    @Override
+    public void send(List<MailMessage> messages) {
+        for (MailMessage message : messages) {
+            log.info("Sending order confirmation to {}", message.getRecipient());
+            log.debug("{}", message.getBody());
+        }
+    }
+}
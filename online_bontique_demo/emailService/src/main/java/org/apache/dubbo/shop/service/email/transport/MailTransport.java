@@ -0,0 +1,33 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.service.email.transport;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 邮件发送通道
+ * <p>
+ * Receives a whole batch so an implementation can reuse one connection for it. Throwing fails the whole batch,
+ * which the outbox retries, unless the implementation reports with a {@link PartialDeliveryException} that it is
+ * done with the first messages, because they were delivered or refused for good.
+ */
+public interface MailTransport {
+
+    void send(List<MailMessage> messages) throws IOException;
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.shop.service.email.transport;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 部分发送失败
+ * <p>
+ * Thrown by a {@link MailTransport} that is done with the first {@link #getProcessed()} messages of the batch
+ * but not with all of them: the server accepted each of those messages except the ones in {@link #getRefused()},
+ * which it refused for good. The caller drops the refused ones and retries only the messages after the processed
+ * ones, if any.
+ */
+public class PartialDeliveryException extends IOException {
+
+    private final int processed;
+
+    private final List<Integer> refused;
+
+    public PartialDeliveryException(int processed, List<Integer> refused, IOException cause) {
+        super((processed - refused.size()) + " messages delivered and " + refused.size() + " refused before: "
+                + cause.getMessage(), cause);
+        this.processed = processed;
+        this.refused = List.copyOf(refused);
+    }
+
+    public int getProcessed() {
+        return processed;
+    }
+
+    /**
+     * Indexes into the batch of the processed messages the server refused permanently.
+     */
+    public List<Integer> getRefused() {
+        return refused;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.service.email.transport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 极简 SMTP 客户端
+ * <p>
+ * Sends a batch over a single connection, one MAIL/RCPT/DATA transaction per message. A message whose recipient or
+ * content the server refuses with a 5xx reply is reported as refused and the batch goes on with the next one, any
+ * other failure ends the batch. Plain text only, no TLS and no authentication, meant for a local relay or the
+ * {@link SmtpStandIn}.
+ */
+@Component
+@ConditionalOnProperty(name = "email.transport", havingValue = "smtp")
+public class SmtpMailTransport implements MailTransport {
+
+    private final String host;
+
+    private final int port;
+
+    private final String from;
+
+    private final int timeoutMillis;
+
+    public SmtpMailTransport(@Value("${email.smtp.host:localhost}") String host,
+                             @Value("${email.smtp.port:2525}") int port,
+                             @Value("${email.smtp.from:no-reply@onlineboutique.local}") String from,
+                             @Value("${email.smtp.timeout-millis:5000}") int timeoutMillis) {
+        this.host = host;
+        this.port = port;
+        this.from = from;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public void send(List<MailMessage> messages) throws IOException {
+        int processed = 0;
+        List<Integer> refused = new ArrayList<>();
+        IOException refusal = null;
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            expect(in, 220);
+            command(in, out, "HELO localhost", 250);
+            for (MailMessage message : messages) {
+                // a refused sender is not about this message, it fails the batch like any other error
+                command(in, out, "MAIL FROM:<" + from + ">", 250);
+                try {
+                    command(in, out, "RCPT TO:<" + address(message.getRecipient()) + ">", 250);
+                    command(in, out, "DATA", 354);
+                    out.write("From: " + from + "\r\nTo: " + address(message.getRecipient()) + "\r\n");
+                    for (String line : message.getBody().split("\r?\n", -1)) {
+                        // a leading dot would end the DATA section, RFC 5321 dot-stuffing
+                        out.write(line.startsWith(".") ? "." + line : line);
+                        out.write("\r\n");
+                    }
+                    // the 250 after the final dot is the server taking responsibility for the message
+                    command(in, out, ".", 250);
+                } catch (ReplyException e) {
+                    if (e.code / 100 != 5) {
+                        throw e;
+                    }
+                    // e.g. 550 no such mailbox, sending it again would get the same answer
+                    refused.add(processed++);
+                    refusal = e;
+                    command(in, out, "RSET", 250);
+                    continue;
+                }
+                processed++;
+            }
+            command(in, out, "QUIT", 221);
+        } catch (IOException e) {
+            // past the last message only QUIT failed
+            if (processed < messages.size()) {
+                throw processed > 0 ? new PartialDeliveryException(processed, refused, e) : e;
+            }
+        }
+        if (refusal != null) {
+            throw new PartialDeliveryException(processed, refused, refusal);
+        }
+    }
+
+    private static String address(String recipient) {
+        if (recipient == null || recipient.isEmpty() || recipient.indexOf('\r') >= 0 || recipient.indexOf('\n') >= 0
+                || recipient.indexOf('<') >= 0 || recipient.indexOf('>') >= 0) {
+            throw new IllegalArgumentException("Invalid recipient: " + recipient);
+        }
+        return recipient;
+    }
+
+    private static void command(BufferedReader in, Writer out, String command, int expected) throws IOException {
+        out.write(command);
+        out.write("\r\n");
+        out.flush();
+        expect(in, expected);
+    }
+
+    private static void expect(BufferedReader in, int expected) throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            if (line == null) {
+                throw new IOException("Connection closed by SMTP server");
+            }
+            // "250-..." continues a multi-line reply, "250 ..." ends it
+        } while (line.length() > 3 && line.charAt(3) == '-');
+        if (line.length() < 3 || !line.startsWith(Integer.toString(expected))) {
+            throw new ReplyException(line, expected);
+        }
+    }
+
+    private static final class ReplyException extends IOException {
+
+        private final int code;
+
+        private ReplyException(String reply, int expected) {
+            super("Unexpected SMTP reply, expected " + expected + ": " + reply);
+            int code;
+            try {
+                code = Integer.parseInt(reply.substring(0, 3));
+            } catch (NumberFormatException e) {
+                code = -1;
+            }
+            this.code = code;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.service.email.transport;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地 SMTP 替身
+ * <p>
+ * A loopback-only SMTP server that accepts every message and keeps the last {@code email.smtp.stand-in.keep} of
+ * them in memory, so the outbox and the {@link SmtpMailTransport} can be exercised without a real mail server.
+ * Enable it with {@code email.smtp.stand-in.enabled=true} and point {@code email.smtp.port} at it.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "email.smtp.stand-in.enabled", havingValue = "true")
+public class SmtpStandIn {
+
+    private final ServerSocket serverSocket;
+
+    private final ExecutorService sessions;
+
+    private final Deque<MailMessage> received = new ArrayDeque<>();
+
+    private final int keep;
+
+    private final AtomicLong count = new AtomicLong();
+
+    public SmtpStandIn(@Value("${email.smtp.stand-in.port:2525}") int port,
+                       @Value("${email.smtp.stand-in.keep:100}") int keep) throws IOException {
+        this.keep = keep;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.sessions = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "smtp-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sessions.execute(this::accept);
+        log.info("SMTP stand-in listening on {}", serverSocket.getLocalSocketAddress());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Number of messages accepted since start.
+     */
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * The most recently accepted messages, oldest first.
+     */
+    public synchronized List<MailMessage> received() {
+        return new ArrayList<>(received);
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                sessions.execute(() -> session(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.warn("SMTP stand-in failed to accept a connection", e);
+                }
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        try (socket) {
+            socket.setSoTimeout(30_000);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            reply(out, "220 localhost SMTP stand-in");
+            String recipient = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String verb = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (verb) {
+                    case "HELO", "EHLO", "MAIL", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "RCPT" -> {
+                        int open = line.indexOf('<');
+                        int close = line.indexOf('>', open + 1);
+                        recipient = open >= 0 && close > open ? line.substring(open + 1, close) : line.substring(4).trim();
+                        reply(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        StringBuilder body = new StringBuilder();
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            body.append(line.startsWith(".") ? line.substring(1) : line).append('\n');
+                        }
+                        store(new MailMessage(recipient, body.toString()));
+                        recipient = null;
+                        reply(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            log.debug("SMTP stand-in session ended", e);
+        }
+    }
+
+    private synchronized void store(MailMessage message) {
+        if (received.size() >= keep) {
+            received.removeFirst();
+        }
+        received.addLast(message);
+        count.incrementAndGet();
+        log.info("SMTP stand-in received a message for {}", message.getRecipient());
+    }
+
+    private static void reply(Writer out, String reply) throws IOException {
+        out.write(reply);
+        out.write("\r\n");
+        out.flush();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        serverSocket.close();
+        sessions.shutdownNow();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.frontend;
+
+import org.apache.dubbo.shop.common.pojo.CartItem;
+import org.apache.dubbo.shop.common.pojo.Money;
+import org.apache.dubbo.shop.common.pojo.Product;
+import org.apache.dubbo.shop.common.utils.MoneyAccumulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 购物车摘要
+ * <p>
+ * What the pages show of a user's cart: the items, their products, the item count and the total. Immutable, so
+ * one instance can be shared by concurrent requests through {@link CartSummaryCache}.
+ */
+final class CartSummary {
+
+    static final String CURRENCY = "USD";
+
+    private final List<CartItem> items;
+
+    private final Map<Product, Integer> productQuantities;
+
+    private final int quantity;
+
+    private final Money totalCost;
+
+    CartSummary(List<CartItem> items, List<Product> products) {
+        Map<Product, Integer> productQuantities = new LinkedHashMap<>();
+        MoneyAccumulator total = new MoneyAccumulator(CURRENCY);
+        int quantity = 0;
+        for (int i = 0; i < items.size(); i++) {
+            CartItem item = items.get(i);
+            quantity += item.getQuantity();
+            Product product = products.get(i);
+            if (product != null) {
+                productQuantities.merge(product, item.getQuantity(), Integer::sum);
+                total.addProduct(product.getPriceUsd(), item.getQuantity());
+            }
+        }
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        this.productQuantities = Collections.unmodifiableMap(productQuantities);
+        this.quantity = quantity;
+        this.totalCost = total.toMoney();
+    }
+
+    List<CartItem> getItems() {
+        return items;
+    }
+
+    List<String> getProductIds() {
+        List<String> productIds = new ArrayList<>(items.size());
+        for (CartItem item : items) {
+            productIds.add(item.getProductId());
+        }
+        return productIds;
+    }
+
+    Map<Product, Integer> getProductQuantities() {
+        return productQuantities;
+    }
+
+    int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * A copy, Money is mutable.
+     */
+    Money getTotalCost() {
+        return new Money(totalCost.getCurrencyCode(), totalCost.getUnits(), totalCost.getNanos());
+    }
+}
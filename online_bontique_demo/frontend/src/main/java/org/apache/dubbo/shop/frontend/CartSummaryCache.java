@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.frontend;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user {@link CartSummary} cache, so the cart size in the page header does not cost a cart and a catalog
+ * call on every page. Entries live for {@code frontend.cart-summary.ttl-seconds}; cart mutations going through
+ * this frontend invalidate the user's entry right away.
+ * <p>
+ * Each entry carries a version that invalidation bumps. A loader reads the version before calling the cart
+ * service and only stores its summary if the version did not move meanwhile, so a load racing with a mutation
+ * never caches the stale cart.
+ */
+@Component
+public class CartSummaryCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final long ttlNanos;
+
+    private final int maxEntries;
+
+    public CartSummaryCache(@Value("${frontend.cart-summary.ttl-seconds:60}") long ttlSeconds,
+                            @Value("${frontend.cart-summary.max-entries:100000}") int maxEntries) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    CartSummary getIfPresent(String userId) {
+        Entry entry = entries.get(userId);
+        return entry == null || entry.expired(System.nanoTime()) ? null : entry.summary;
+    }
+
+    /**
+     * The version to pass to {@link #put} after loading.
+     */
+    long version(String userId) {
+        Entry entry = entries.get(userId);
+        return entry == null ? 0 : entry.version;
+    }
+
+    void put(String userId, long version, CartSummary summary) {
+        long expiresAt = System.nanoTime() + ttlNanos;
+        entries.compute(userId, (k, current) -> {
+            long currentVersion = current == null ? 0 : current.version;
+            return currentVersion == version ? new Entry(version, summary, expiresAt) : current;
+        });
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+    }
+
+    void invalidate(String userId) {
+        // keep a summary-less entry with the bumped version for as long as a load could be in flight
+        long expiresAt = System.nanoTime() + ttlNanos;
+        entries.compute(userId, (k, current) -> new Entry(current == null ? 1 : current.version + 1, null, expiresAt));
+    }
+
+    private void evict() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.expired(now));
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        // still full of live entries: drop the ones closest to expiring, a tenth more than needed so the next puts
+        // do not sort again. An invalidation has the newest expiry and goes last, and a cart summary dropped early
+        // only costs its user one cart call
+        long[] remaining = entries.values().stream().mapToLong(entry -> entry.expiresAt - now).toArray();
+        int keep = maxEntries - maxEntries / 10;
+        if (remaining.length <= keep) {
+            return;
+        }
+        Arrays.sort(remaining);
+        long cutoff = remaining[remaining.length - keep - 1];
+        entries.values().removeIf(entry -> entry.expiresAt - now <= cutoff);
+    }
+
+    private static final class Entry {
+
+        private final long version;
+
+        private final CartSummary summary;
+
+        private final long expiresAt;
+
+        private Entry(long version, CartSummary summary, long expiresAt) {
+            this.version = version;
+            this.summary = summary;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean expired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -19,12 +19,12 @@ package org.apache.dubbo.shop.frontend;
 
 import org.apache.dubbo.config.annotation.DubboReference;
 import org.apache.dubbo.shop.common.dto.request.AdRequest;
-import org.apache.dubbo.shop.common.dto.request.AddItemRequest;
 import org.apache.dubbo.shop.common.dto.request.GetProductRequest;
 import org.apache.dubbo.shop.common.dto.request.GetQuoteRequest;
 import org.apache.dubbo.shop.common.dto.request.ListRecommendationsRequest;
 import org.apache.dubbo.shop.common.dto.request.PlaceOrderRequest;
 import org.apache.dubbo.shop.common.dto.response.AdResponse;
+import org.apache.dubbo.shop.common.dto.response.GetQuoteResponse;
 import org.apache.dubbo.shop.common.dto.response.ListProductsResponse;
 import org.apache.dubbo.shop.common.dto.response.ListRecommendationsResponse;
 import org.apache.dubbo.shop.common.dto.response.PlaceOrderResponse;
@@ -33,8 +33,9 @@ import org.apache.dubbo.shop.common.pojo.Address;
 import org.apache.dubbo.shop.common.pojo.Cart;
 import org.apache.dubbo.shop.common.pojo.CartItem;
 import org.apache.dubbo.shop.common.pojo.Empty;
-import org.apache.dubbo.shop.common.pojo.Money;
+import org.apache.dubbo.shop.common.pojo.OrderResult;
 import org.apache.dubbo.shop.common.pojo.Product;
+import org.apache.dubbo.shop.common.utils.AsyncRpc;
 import org.apache.dubbo.shop.common.utils.MoneyUtils;
 import org.apache.dubbo.shop.service.AdsService;
 import org.apache.dubbo.shop.service.CartService;
@@ -43,6 +44,9 @@ import org.apache.dubbo.shop.service.ProductCatalogService;
 import org.apache.dubbo.shop.service.RecommendationService;
 import org.apache.dubbo.shop.service.ShippingService;
 
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -50,16 +54,25 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.util.WebUtils;
 
+import java.time.Year;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ExecutionException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+/**
+ * Holds no per-user state: the user comes from the session cookie, totals are computed per request and cart
+ * summaries are shared through {@link CartSummaryCache}. Each page issues its independent Dubbo calls at once and
+ * only then waits for them.
+ */
 @Controller
 public class FrontendController {
 
+    static final String SESSION_COOKIE = "shop_session-id";
+
     @DubboReference
     private ShippingService shippingService;
     @DubboReference
@@ -73,54 +86,39 @@ public class FrontendController {
     @DubboReference
     private AdsService adsService;
 
-    static Money totalCost = new Money("USD", 0L, 0);
-    static int totalQuantity = 0;
+    private final CartSummaryCache cartSummaryCache;
+
+    public FrontendController(CartSummaryCache cartSummaryCache) {
+        this.cartSummaryCache = cartSummaryCache;
+    }
+
     @PostMapping("/cart/add")
-    public String addItemToCart(@RequestParam String productId, @RequestParam Integer quantity, @RequestParam String userId) {
-        CartItem item = new CartItem(productId, quantity);
-        AddItemRequest request = new AddItemRequest(userId, item);
-        cartService.addItem(request.getUserId(), request.getItem());
+    public String addItemToCart(@RequestParam String productId, @RequestParam Integer quantity,
+                                HttpServletRequest request, HttpServletResponse response) {
+        String userId = userId(request, response);
+        cartService.addItem(userId, new CartItem(productId, quantity));
+        cartSummaryCache.invalidate(userId);
         return "redirect:/cart"; // 重定向到购物车页面或其他页面
     }
 
     @GetMapping("/cart")
-    public String getCart(Model model, String userId) throws ExecutionException, InterruptedException {
-        model.addAttribute("is_cymbal_brand", false);
-        model.addAttribute("show_currency", false);
-        Cart cart = cartService.getCart("1");
-        model.addAttribute("items", cart);
+    public String getCart(Model model, HttpServletRequest request, HttpServletResponse response) {
+        String userId = userId(request, response);
+        CartSummary cart = join(cartSummary(userId));
         List<CartItem> items = cart.getItems();
 
-        Map<Product, Integer> productQuantityMap = new HashMap<>();
-
-
-        List<String> productIds = new ArrayList<>();
-        totalQuantity = 0;
-       MoneyUtils.reset(totalCost);
-
-        for (CartItem item : items) {
-            totalQuantity += item.getQuantity();
-            Product product = productCatalogService.getProduct(new GetProductRequest(item.getProductId()));
-            productIds.add(item.getProductId());
-            if (product != null) {
-                productQuantityMap.put(product, item.getQuantity());
-            }
-        }
-
-        for (Map.Entry<Product, Integer> entry : productQuantityMap.entrySet()) {
-            totalCost = MoneyUtils.sum(totalCost, MoneyUtils.multiplySlow(entry.getKey().getPriceUsd(), entry.getValue()));
-        }
+        CompletableFuture<List<Product>> recommendations = recommendations(userId, cart.getProductIds());
+        CompletableFuture<GetQuoteResponse> shippingCost =
+                AsyncRpc.send(() -> shippingService.getQuote(new GetQuoteRequest(new Address(), items)));
 
-        ListRecommendationsResponse recommendations = recommendationService.listRecommendations(new ListRecommendationsRequest("1", productIds));
-        List<Product> products = new ArrayList<>();
-        for (String productId : recommendations.getProductIds()) {
-            products.add(productCatalogService.getProduct(new GetProductRequest(productId)));
-        }
-        model.addAttribute("recommendations", products);
-        model.addAttribute("cart_size", totalQuantity);
-        model.addAttribute("productQuantityMap", productQuantityMap);
-        model.addAttribute("total_cost", totalCost);
-        model.addAttribute("shipping_cost", shippingService.getQuote(new GetQuoteRequest(new Address(), items)));
+        model.addAttribute("is_cymbal_brand", false);
+        model.addAttribute("show_currency", false);
+        model.addAttribute("items", new Cart(userId, items));
+        model.addAttribute("recommendations", join(recommendations));
+        model.addAttribute("cart_size", cart.getQuantity());
+        model.addAttribute("productQuantityMap", cart.getProductQuantities());
+        model.addAttribute("total_cost", cart.getTotalCost());
+        model.addAttribute("shipping_cost", join(shippingCost));
 
         model.addAttribute("email", "someone@example.com");
         model.addAttribute("street_address", "1600 Amphitheatre Parkway");
@@ -130,60 +128,65 @@ public class FrontendController {
         model.addAttribute("country", "United States");
         model.addAttribute("credit_card_number", "4432-8015-6152-0454");
         model.addAttribute("cvv", "123");
+        // the payment service rejects expired cards, offer this year and the next ones
+        int year = Year.now().getValue();
+        List<Integer> expirationYears = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            expirationYears.add(year + i);
+        }
+        model.addAttribute("expiration_years", expirationYears);
+        model.addAttribute("default_expiration_year", year + 1);
         // Add any other default values needed
 
         return "cart";
     }
 
     @PostMapping("/cart/empty")
-    public String emptyCart(String userId) {
-        cartService.emptyCart("1");
-        totalQuantity = 0;
+    public String emptyCart(HttpServletRequest request, HttpServletResponse response) {
+        String userId = userId(request, response);
+        cartService.emptyCart(userId);
+        cartSummaryCache.invalidate(userId);
         return "redirect:/cart";
     }
 
     @PostMapping("/cart/checkout")
-    public String checkout(@ModelAttribute PlaceOrderRequest placeOrderRequest,Model model) throws ExecutionException, InterruptedException {
-        PlaceOrderResponse placeOrderResponse = checkoutService.placeOrder(placeOrderRequest);
-
-        checkoutService.emptyUserCart("1");
-        totalQuantity = 0;
-        checkoutService.sendOrderConfirmation(placeOrderRequest.getEmail(), placeOrderResponse.getOrder());
-
-        ListRecommendationsResponse recommendations = recommendationService.listRecommendations(new ListRecommendationsRequest("1", new ArrayList<>()));
-        List<Product> products = new ArrayList<>();
-        for(String productId : recommendations.getProductIds()){
-            products.add(productCatalogService.getProduct(new GetProductRequest(productId)));
+    public String checkout(@ModelAttribute PlaceOrderRequest placeOrderRequest, Model model,
+                           HttpServletRequest request, HttpServletResponse response) {
+        String userId = userId(request, response);
+        placeOrderRequest.setUserId(userId);
+        // the recommendations do not depend on the order, fetch them while the order is placed
+        CompletableFuture<List<Product>> recommendations = recommendations(userId, new ArrayList<>());
+        PlaceOrderResponse placeOrderResponse;
+        try {
+            placeOrderResponse = checkoutService.placeOrder(placeOrderRequest);
+        } finally {
+            cartSummaryCache.invalidate(userId);
         }
+        // the checkout service queues the confirmation email itself
+        OrderResult order = placeOrderResponse.getOrder();
 
-        model.addAttribute("order",placeOrderResponse.getOrder());
-        model.addAttribute("total_cost",totalCost);
-        model.addAttribute("recommendations",products);
+        model.addAttribute("order", order);
+        model.addAttribute("total_cost", MoneyUtils.sumOfProducts(order.getShippingCost().getCurrencyCode(), order.getItems(), order.getShippingCost()));
+        model.addAttribute("recommendations", join(recommendations));
         model.addAttribute("is_cymbal_brand", false);
         model.addAttribute("show_currency", false);
         return "order";
     }
 
     @GetMapping("/product/{id}")
-    public String product(@PathVariable String id, Model model) throws ExecutionException, InterruptedException {
-        Product product = productCatalogService.getProduct(new GetProductRequest(id));
+    public String product(@PathVariable String id, Model model, HttpServletRequest request, HttpServletResponse response) {
+        String userId = userId(request, response);
+        CompletableFuture<Product> product = AsyncRpc.send(() -> productCatalogService.getProduct(new GetProductRequest(id)));
+        CompletableFuture<List<Product>> recommendations = recommendations(userId, List.of(id));
+        CompletableFuture<AdResponse> ads = AsyncRpc.send(() -> adsService.getAds(new AdRequest(List.of(id))));
+        CompletableFuture<CartSummary> cart = cartSummary(userId);
 
         model.addAttribute("is_cymbal_brand", false);
         model.addAttribute("show_currency", false);
-        model.addAttribute("product",product);
-
-        ListRecommendationsResponse recommendations = recommendationService.listRecommendations(new ListRecommendationsRequest("1", List.of(product.getId())));
-        List<Product> products = new ArrayList<>();
-        for(String productId : recommendations.getProductIds()){
-            products.add(productCatalogService.getProduct(new GetProductRequest(productId)));
-        }
-
-        AdRequest adRequest = new AdRequest(List.of(id));
-        AdResponse ads = adsService.getAds(adRequest);
-
-        model.addAttribute("recommendations",products);
-        model.addAttribute("ad", ads.getAds().get(0));
-        model.addAttribute("cart_size",totalQuantity);
+        model.addAttribute("product", join(product));
+        model.addAttribute("recommendations", join(recommendations));
+        model.addAttribute("ad", join(ads).getAds().get(0));
+        model.addAttribute("cart_size", join(cart).getQuantity());
         return "product";
     }
 
@@ -196,11 +199,85 @@ public class FrontendController {
     }
 
     @GetMapping({"/"})
-    public String listUser(Model model) {
+    public String listUser(Model model, HttpServletRequest request, HttpServletResponse response) {
+        String userId = userId(request, response);
+        CompletableFuture<ListProductsResponse> products = AsyncRpc.send(() -> productCatalogService.listProducts(new Empty()));
+        CompletableFuture<CartSummary> cart = cartSummary(userId);
+
         model.addAttribute("is_cymbal_brand", false);
-        ListProductsResponse response = productCatalogService.listProducts(new Empty());
-        model.addAttribute("products", response.getProducts());
-        model.addAttribute("cart_size",totalQuantity);
+        model.addAttribute("products", join(products).getProducts());
+        model.addAttribute("cart_size", join(cart).getQuantity());
         return "home";
     }
+
+    /**
+     * The user of a request, identified by the session cookie which is issued on the first visit.
+     */
+    private static String userId(HttpServletRequest request, HttpServletResponse response) {
+        Cookie cookie = WebUtils.getCookie(request, SESSION_COOKIE);
+        if (cookie != null && !cookie.getValue().isEmpty()) {
+            return cookie.getValue();
+        }
+        String userId = UUID.randomUUID().toString();
+        Cookie issued = new Cookie(SESSION_COOKIE, userId);
+        issued.setPath("/");
+        issued.setHttpOnly(true);
+        response.addCookie(issued);
+        return userId;
+    }
+
+    /**
+     * The cached summary of the user's cart, or a load of it: the cart, then all its products in one call.
+     */
+    private CompletableFuture<CartSummary> cartSummary(String userId) {
+        CartSummary cached = cartSummaryCache.getIfPresent(userId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        long version = cartSummaryCache.version(userId);
+        return AsyncRpc.send(() -> cartService.getCart(userId))
+                .thenCompose(cart -> {
+                    List<CartItem> items = cart.getItems() == null ? new ArrayList<>() : cart.getItems();
+                    return getCartProducts(items).thenApply(products -> new CartSummary(items, products));
+                })
+                .whenComplete((summary, t) -> {
+                    if (summary != null) {
+                        cartSummaryCache.put(userId, version, summary);
+                    }
+                });
+    }
+
+    private CompletableFuture<List<Product>> recommendations(String userId, List<String> productIds) {
+        return AsyncRpc.send(() -> recommendationService.listRecommendations(new ListRecommendationsRequest(userId, productIds)))
+                .thenCompose(response -> getProducts(response.getProductIds()));
+    }
+
+    private CompletableFuture<List<Product>> getCartProducts(List<CartItem> items) {
+        List<String> productIds = new ArrayList<>(items.size());
+        for (CartItem item : items) {
+            productIds.add(item.getProductId());
+        }
+        return getProducts(productIds);
+    }
+
+    /**
+     * Looks up all products in one call, the result matches productIds one to one.
+     */
+    private CompletableFuture<List<Product>> getProducts(List<String> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        return AsyncRpc.send(() -> productCatalogService.getProducts(productIds));
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
 }
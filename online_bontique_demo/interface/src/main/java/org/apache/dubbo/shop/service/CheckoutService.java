@@ -28,10 +28,16 @@ import org.apache.dubbo.shop.common.pojo.OrderItem;
 import org.apache.dubbo.shop.common.pojo.OrderResult;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface CheckoutService {
     
     PlaceOrderResponse placeOrder(PlaceOrderRequest request);
+    
+    /**
+     * 异步下单, 商品/汇率与运费报价并行, 支付后发货, 确认邮件不等待
+     */
+    CompletableFuture<PlaceOrderResponse> placeOrderAsync(PlaceOrderRequest request);
     OrderPrep prepareOrderItemsAndShippingQuoteFromCart(String userId, String userCurrency, Address address);
     Money quoteShipping(Address address, List<CartItem> items);
     List<CartItem> getUserCart(String userId);
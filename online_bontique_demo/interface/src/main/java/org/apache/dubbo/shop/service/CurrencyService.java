@@ -22,8 +22,15 @@ import org.apache.dubbo.shop.common.dto.response.GetSupportedCurrenciesResponse;
 import org.apache.dubbo.shop.common.pojo.Empty;
 import org.apache.dubbo.shop.common.pojo.Money;
 
+import java.util.List;
+
 public interface CurrencyService {
     
     GetSupportedCurrenciesResponse getSupportedCurrencies(Empty request);
     Money convert(CurrencyConversionRequest request);
+    
+    /**
+     * 批量换算到同一币种, 结果与 from 一一对应
+     */
+    List<Money> convertBatch(List<Money> from, String toCode);
 }
@@ -41,4 +41,14 @@ public interface ProductCatalogService {
      * 获取商品
      */
     Product getProduct(GetProductRequest request);
+    
+    /**
+     * 批量获取商品, 结果与 ids 一一对应, 不存在的商品为 null
+     */
+    List<Product> getProducts(List<String> ids);
+    
+    /**
+     * 搜索商品, 按相关度排序
+     */
+    SearchProductsResponse searchProducts(SearchProductsRequest request);
 }
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.loadgen;
+
+import org.apache.dubbo.config.spring.context.annotation.DubboComponentScan;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * 进程内启动全部服务
+ * <p>
+ * Active with the injvm profile: picks up every service implementation of the boutique and exports it over
+ * Dubbo's injvm protocol. loadgen-injvm.yml replaces Nacos with no registry at all, references find the exported
+ * services in the JVM, so a run needs nothing but this jar. Hops skip serialization and the network, compare such
+ * runs with each other rather than with a deployment.
+ * <p>
+ * The applications of the service modules are skipped, their component scans would pull in the whole tree again.
+ */
+@Configuration
+@Profile("injvm")
+@ComponentScan(basePackages = {
+        "org.apache.dubbo.shop.service",
+        "org.apache.dubbo.shop.checkout",
+        "org.apache.dubbo.shop.currency",
+        "org.apache.dubbo.shop.payment",
+        "org.apache.dubbo.shop.shipping"},
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ANNOTATION, classes = SpringBootApplication.class))
+@DubboComponentScan(basePackages = {
+        "org.apache.dubbo.shop.service",
+        "org.apache.dubbo.shop.checkout",
+        "org.apache.dubbo.shop.currency",
+        "org.apache.dubbo.shop.payment",
+        "org.apache.dubbo.shop.shipping"})
+public class InJvmBoutique {
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.loadgen;
+
+import org.apache.dubbo.config.spring.context.annotation.EnableDubbo;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Runs the configured load stages against the boutique services and exits with 0 when every SLO held, 1 otherwise.
+ * <p>
+ * By default the services are reached through Nacos. With {@code --spring.profiles.active=injvm} all services are
+ * started in this JVM instead, see {@link InJvmBoutique}.
+ * <p>
+ * Reads loadgen.yml rather than application.yml, which every service jar on the classpath brings along.
+ */
+@SpringBootApplication
+@EnableDubbo
+public class LoadGeneratorApplication {
+
+    public static void main(String[] args) throws InterruptedException {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LoadGeneratorApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.config.name=loadgen")
+                .run(args);
+        boolean passed;
+        try {
+            passed = context.getBean(LoadRunner.class).run();
+        } finally {
+            SpringApplication.exit(context);
+        }
+        System.exit(passed ? 0 : 1);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.loadgen;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开环负载驱动
+ * <p>
+ * Starts journeys at Poisson arrivals, one stage per rate of {@code loadgen.arrival-rates} journeys per second,
+ * each lasting {@code loadgen.stage-seconds} after a shared {@code loadgen.warmup-seconds} at the first rate.
+ * Arrivals follow the schedule no matter how slow the services get, at most
+ * {@code loadgen.max-concurrent-journeys} run at once and an arrival finding none free is dropped and counted as
+ * a failed journey. Latencies are measured from the scheduled arrival, so queueing shows up in the percentiles
+ * instead of silently lowering the rate.
+ */
+@Slf4j
+@Component
+public class LoadRunner {
+
+    private final ShopperJourney journey;
+
+    private final int[] arrivalRates;
+
+    private final long stageNanos;
+
+    private final long warmupNanos;
+
+    private final int maxConcurrentJourneys;
+
+    private final SloReport report;
+
+    private final String reportFile;
+
+    public LoadRunner(ShopperJourney journey,
+                      @Value("${loadgen.arrival-rates:10,50,100}") int[] arrivalRates,
+                      @Value("${loadgen.stage-seconds:60}") long stageSeconds,
+                      @Value("${loadgen.warmup-seconds:15}") long warmupSeconds,
+                      @Value("${loadgen.max-concurrent-journeys:1000}") int maxConcurrentJourneys,
+                      @Value("${loadgen.slo.p99-millis:500}") long sloP99Millis,
+                      @Value("${loadgen.slo.max-error-rate:0.01}") double sloMaxErrorRate,
+                      @Value("${loadgen.report-file:}") String reportFile) {
+        for (int rate : arrivalRates) {
+            if (rate <= 0) {
+                throw new IllegalArgumentException("Arrival rates must be positive: " + rate);
+            }
+        }
+        this.journey = journey;
+        this.arrivalRates = arrivalRates;
+        this.stageNanos = TimeUnit.SECONDS.toNanos(stageSeconds);
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(warmupSeconds);
+        this.maxConcurrentJourneys = maxConcurrentJourneys;
+        this.report = new SloReport(TimeUnit.MILLISECONDS.toNanos(sloP99Millis), sloMaxErrorRate);
+        this.reportFile = reportFile;
+    }
+
+    /**
+     * Runs all stages and prints the report.
+     *
+     * @return whether every endpoint met the SLO in every stage
+     */
+    public boolean run() throws InterruptedException {
+        ThreadPoolExecutor journeys = new ThreadPoolExecutor(0, maxConcurrentJourneys, 30, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "loadgen-journey");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<StageMetrics> stages = new ArrayList<>();
+        try {
+            if (warmupNanos > 0) {
+                log.info("Warming up at {} journeys/s for {}s", arrivalRates[0], TimeUnit.NANOSECONDS.toSeconds(warmupNanos));
+                drive(journeys, new StageMetrics(arrivalRates[0]), warmupNanos);
+            }
+            for (int rate : arrivalRates) {
+                log.info("Running {} journeys/s for {}s", rate, TimeUnit.NANOSECONDS.toSeconds(stageNanos));
+                StageMetrics stage = new StageMetrics(rate);
+                stages.add(stage);
+                drive(journeys, stage, stageNanos);
+            }
+        } finally {
+            journeys.shutdown();
+        }
+        if (!journeys.awaitTermination(60, TimeUnit.SECONDS)) {
+            log.warn("{} journeys still running, reporting without them", journeys.getActiveCount());
+        }
+
+        for (StageMetrics stage : stages) {
+            report.add(stage.snapshot());
+        }
+        report.write(System.out);
+        if (!reportFile.isEmpty()) {
+            try {
+                report.write(new File(reportFile));
+            } catch (IOException e) {
+                log.error("Failed to write the report to {}", reportFile, e);
+            }
+        }
+        return report.passed();
+    }
+
+    private void drive(ThreadPoolExecutor journeys, StageMetrics stage, long durationNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / (double) stage.getArrivalRate();
+        long end = System.nanoTime() + durationNanos;
+        long intended = System.nanoTime();
+        while (true) {
+            // exponential inter-arrival times make the arrivals a Poisson process
+            intended += (long) (-Math.log(1 - random.nextDouble()) * meanIntervalNanos);
+            if (intended >= end) {
+                return;
+            }
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            stage.arrived();
+            long scheduled = intended;
+            try {
+                journeys.execute(() -> journey.run(stage, scheduled));
+            } catch (RejectedExecutionException e) {
+                stage.dropped();
+            }
+        }
+    }
+}
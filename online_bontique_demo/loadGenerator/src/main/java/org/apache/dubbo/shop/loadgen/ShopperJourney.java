@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.loadgen;
+
+import org.apache.dubbo.config.annotation.DubboReference;
+import org.apache.dubbo.shop.common.dto.request.AdRequest;
+import org.apache.dubbo.shop.common.dto.request.GetProductRequest;
+import org.apache.dubbo.shop.common.dto.request.GetQuoteRequest;
+import org.apache.dubbo.shop.common.dto.request.ListRecommendationsRequest;
+import org.apache.dubbo.shop.common.dto.request.PlaceOrderRequest;
+import org.apache.dubbo.shop.common.dto.response.ListProductsResponse;
+import org.apache.dubbo.shop.common.pojo.Address;
+import org.apache.dubbo.shop.common.pojo.CartItem;
+import org.apache.dubbo.shop.common.pojo.CreditCardInfo;
+import org.apache.dubbo.shop.common.pojo.Empty;
+import org.apache.dubbo.shop.common.pojo.Product;
+import org.apache.dubbo.shop.common.utils.AsyncRpc;
+import org.apache.dubbo.shop.service.AdsService;
+import org.apache.dubbo.shop.service.CartService;
+import org.apache.dubbo.shop.service.CheckoutService;
+import org.apache.dubbo.shop.service.ProductCatalogService;
+import org.apache.dubbo.shop.service.RecommendationService;
+import org.apache.dubbo.shop.service.ShippingService;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模拟一次用户访问
+ * <p>
+ * Browses the home page, views one to {@code loadgen.journey.max-products} products, adds one of them to the
+ * cart with {@code loadgen.journey.add-to-cart-probability}, then views the cart and checks out with
+ * {@code loadgen.journey.checkout-probability}. Every page issues the same Dubbo calls as the frontend's page of
+ * that name, independent calls at once. Each page is recorded as an endpoint and each call as a hop, a failed
+ * page ends the journey.
+ */
+@Component
+public class ShopperJourney {
+
+    @DubboReference
+    private ProductCatalogService productCatalogService;
+
+    @DubboReference
+    private CartService cartService;
+
+    @DubboReference
+    private RecommendationService recommendationService;
+
+    @DubboReference
+    private ShippingService shippingService;
+
+    @DubboReference
+    private CheckoutService checkoutService;
+
+    @DubboReference
+    private AdsService adsService;
+
+    private final int maxProducts;
+
+    private final double addToCartProbability;
+
+    private final double checkoutProbability;
+
+    private final long thinkTimeMillis;
+
+    public ShopperJourney(@Value("${loadgen.journey.max-products:3}") int maxProducts,
+                          @Value("${loadgen.journey.add-to-cart-probability:0.6}") double addToCartProbability,
+                          @Value("${loadgen.journey.checkout-probability:0.5}") double checkoutProbability,
+                          @Value("${loadgen.journey.think-time-millis:0}") long thinkTimeMillis) {
+        this.maxProducts = maxProducts;
+        this.addToCartProbability = addToCartProbability;
+        this.checkoutProbability = checkoutProbability;
+        this.thinkTimeMillis = thinkTimeMillis;
+    }
+
+    /**
+     * Runs one journey, {@code intendedStart} is the System.nanoTime() the arrival was scheduled for, so the wait
+     * for a free journey slot counts towards the first page and the whole journey.
+     */
+    public void run(StageMetrics metrics, long intendedStart) {
+        boolean failed = true;
+        try {
+            journey(new Visit(metrics, "loadgen-" + UUID.randomUUID()), intendedStart);
+            failed = false;
+        } catch (RuntimeException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            metrics.endpoint(StageMetrics.JOURNEY, System.nanoTime() - intendedStart, failed);
+        }
+    }
+
+    private void journey(Visit visit, long intendedStart) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        List<Product> products = visit.page("home", intendedStart, () -> {
+            CompletableFuture<ListProductsResponse> catalog =
+                    visit.hop("ProductCatalogService.listProducts", () -> productCatalogService.listProducts(new Empty()));
+            CompletableFuture<?> cart = cartSummary(visit);
+            cart.join();
+            return catalog.join().getProducts();
+        });
+        if (products == null || products.isEmpty()) {
+            return;
+        }
+
+        int views = 1 + random.nextInt(Math.max(1, maxProducts));
+        List<String> viewed = new ArrayList<>(views);
+        for (int i = 0; i < views; i++) {
+            think();
+            String id = products.get(random.nextInt(products.size())).getId();
+            viewed.add(id);
+            visit.page("product", System.nanoTime(), () -> {
+                CompletableFuture<Product> product =
+                        visit.hop("ProductCatalogService.getProduct", () -> productCatalogService.getProduct(new GetProductRequest(id)));
+                CompletableFuture<?> recommendations = recommendations(visit, List.of(id));
+                CompletableFuture<?> ads = visit.hop("AdsService.getAds", () -> adsService.getAds(new AdRequest(List.of(id))));
+                CompletableFuture<?> cart = cartSummary(visit);
+                product.join();
+                recommendations.join();
+                ads.join();
+                cart.join();
+                return null;
+            });
+        }
+
+        if (random.nextDouble() >= addToCartProbability) {
+            return;
+        }
+        think();
+        CartItem item = new CartItem(viewed.get(random.nextInt(viewed.size())), 1 + random.nextInt(3));
+        visit.page("addToCart", System.nanoTime(), () -> visit.hop("CartService.addItem", () -> {
+            cartService.addItem(visit.userId, item);
+            return null;
+        }).join());
+
+        think();
+        visit.page("viewCart", System.nanoTime(), () -> {
+            List<CartItem> items = cartSummary(visit).join();
+            List<String> productIds = new ArrayList<>(items.size());
+            for (CartItem cartItem : items) {
+                productIds.add(cartItem.getProductId());
+            }
+            CompletableFuture<?> recommendations = recommendations(visit, productIds);
+            CompletableFuture<?> quote = visit.hop("ShippingService.getQuote",
+                    () -> shippingService.getQuote(new GetQuoteRequest(new Address(), items)));
+            recommendations.join();
+            quote.join();
+            return null;
+        });
+
+        if (random.nextDouble() >= checkoutProbability) {
+            return;
+        }
+        think();
+        visit.page("checkout", System.nanoTime(), () -> {
+            CompletableFuture<?> recommendations = recommendations(visit, new ArrayList<>());
+            CompletableFuture<?> order = visit.hop("CheckoutService.placeOrder",
+                    () -> checkoutService.placeOrder(order(visit.userId)));
+            order.join();
+            recommendations.join();
+            return null;
+        });
+    }
+
+    /**
+     * The cart, then all its products in one call, like the frontend's cart summary without its cache.
+     */
+    private CompletableFuture<List<CartItem>> cartSummary(Visit visit) {
+        return visit.hop("CartService.getCart", () -> cartService.getCart(visit.userId))
+                .thenCompose(cart -> {
+                    List<CartItem> items = cart.getItems() == null ? new ArrayList<>() : cart.getItems();
+                    List<String> productIds = new ArrayList<>(items.size());
+                    for (CartItem item : items) {
+                        productIds.add(item.getProductId());
+                    }
+                    return getProducts(visit, productIds).thenApply(products -> items);
+                });
+    }
+
+    private CompletableFuture<List<Product>> recommendations(Visit visit, List<String> productIds) {
+        return visit.hop("RecommendationService.listRecommendations",
+                        () -> recommendationService.listRecommendations(new ListRecommendationsRequest(visit.userId, productIds)))
+                .thenCompose(response -> getProducts(visit, response.getProductIds()));
+    }
+
+    private CompletableFuture<List<Product>> getProducts(Visit visit, List<String> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        return visit.hop("ProductCatalogService.getProducts", () -> productCatalogService.getProducts(productIds));
+    }
+
+    private void think() throws InterruptedException {
+        if (thinkTimeMillis > 0) {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(thinkTimeMillis * 2));
+        }
+    }
+
+    private static PlaceOrderRequest order(String userId) {
+        PlaceOrderRequest request = new PlaceOrderRequest();
+        request.setUserId(userId);
+        request.setUserCurrency("USD");
+        request.setEmail("someone@example.com");
+        request.setAddress(new Address("1600 Amphitheatre Parkway", "Mountain View", "CA", "United States", 94043));
+        request.setCreditCard(new CreditCardInfo(cardNumber(), 123, 2030, 1));
+        return request;
+    }
+
+    /**
+     * A random Luhn-valid VISA number, every journey pays with its own card so the payment service's per-card
+     * velocity limit does not turn a steady load into declined orders.
+     */
+    private static String cardNumber() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] digits = new int[16];
+        digits[0] = 4;
+        for (int i = 1; i < 15; i++) {
+            digits[i] = random.nextInt(10);
+        }
+        // the check digit makes the Luhn sum, doubling every second digit from the right, a multiple of ten
+        int sum = 0;
+        for (int i = 14; i >= 0; i--) {
+            int digit = digits[i];
+            if ((14 - i) % 2 == 0) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        digits[15] = (10 - sum % 10) % 10;
+
+        StringBuilder number = new StringBuilder(19);
+        for (int i = 0; i < digits.length; i++) {
+            if (i > 0 && i % 4 == 0) {
+                number.append('-');
+            }
+            number.append(digits[i]);
+        }
+        return number.toString();
+    }
+
+    /**
+     * One user's journey, records its pages and calls into the stage it arrived in.
+     */
+    private static class Visit {
+
+        private final StageMetrics metrics;
+
+        private final String userId;
+
+        Visit(StageMetrics metrics, String userId) {
+            this.metrics = metrics;
+            this.userId = userId;
+        }
+
+        <T> T page(String name, long start, Callable<T> page) {
+            boolean failed = true;
+            try {
+                T result = page.call();
+                failed = false;
+                return result;
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            } finally {
+                metrics.endpoint(name, System.nanoTime() - start, failed);
+            }
+        }
+
+        /**
+         * {@link AsyncRpc#send} timed as a hop of this visit.
+         */
+        <T> CompletableFuture<T> hop(String name, Callable<T> call) {
+            long start = System.nanoTime();
+            CompletableFuture<T> future;
+            try {
+                future = AsyncRpc.send(call);
+            } catch (RuntimeException e) {
+                metrics.hop(name, System.nanoTime() - start, true);
+                throw e;
+            }
+            return future.whenComplete((result, t) -> metrics.hop(name, System.nanoTime() - start, t != null));
+        }
+    }
+}
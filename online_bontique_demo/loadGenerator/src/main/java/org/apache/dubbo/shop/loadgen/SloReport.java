@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.loadgen;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 负载测试报告
+ * <p>
+ * One block per stage: the endpoints, which are the journey and its pages, each checked against the SLO, then the
+ * hops, which are the single Dubbo calls and only reported. Latencies are in milliseconds, rows are sorted by name
+ * so two reports can be compared with a plain diff.
+ */
+public class SloReport {
+
+    static final String HEADER = "# kind\tname\tcount\terrors\terror%\tp50\tp90\tp99\tp99.9\tmax\tslo";
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final long p99Nanos;
+
+    private final double maxErrorRate;
+
+    private final List<StageMetrics.Snapshot> stages = new ArrayList<>();
+
+    public SloReport(long p99Nanos, double maxErrorRate) {
+        this.p99Nanos = p99Nanos;
+        this.maxErrorRate = maxErrorRate;
+    }
+
+    public void add(StageMetrics.Snapshot stage) {
+        stages.add(stage);
+    }
+
+    public boolean passed() {
+        for (StageMetrics.Snapshot stage : stages) {
+            for (StageMetrics.Row row : stage.getEndpoints().values()) {
+                if (!met(row)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public void write(File file) throws IOException {
+        try (PrintStream out = new PrintStream(file, StandardCharsets.UTF_8.name())) {
+            write(out);
+        }
+    }
+
+    public void write(PrintStream out) {
+        out.printf(Locale.ROOT, "# slo: p99 <= %s ms, error rate <= %.2f%%%n", millis(p99Nanos), maxErrorRate * 100);
+        for (StageMetrics.Snapshot stage : stages) {
+            out.printf(Locale.ROOT, "# stage %d journeys/s: %d arrivals, %d dropped%n",
+                    stage.getArrivalRate(), stage.getArrivals(), stage.getDropped());
+            out.println(HEADER);
+            write(out, "endpoint", stage.getEndpoints(), true);
+            write(out, "hop", stage.getHops(), false);
+        }
+        out.println(passed() ? "# PASS" : "# FAIL");
+        out.flush();
+    }
+
+    private void write(PrintStream out, String kind, Map<String, StageMetrics.Row> rows, boolean checked) {
+        for (Map.Entry<String, StageMetrics.Row> entry : rows.entrySet()) {
+            StageMetrics.Row row = entry.getValue();
+            Histogram histogram = row.getHistogram();
+            StringBuilder line = new StringBuilder(kind)
+                    .append('\t').append(entry.getKey())
+                    .append('\t').append(row.getCount())
+                    .append('\t').append(row.getErrors())
+                    .append('\t').append(String.format(Locale.ROOT, "%.2f", row.getErrorRate() * 100));
+            for (double percentile : PERCENTILES) {
+                line.append('\t').append(millis(histogram.getValueAtPercentile(percentile)));
+            }
+            line.append('\t').append(millis(histogram.getMaxValue()));
+            line.append('\t').append(checked ? (met(row) ? "ok" : "VIOLATED") : "-");
+            out.println(line);
+        }
+    }
+
+    private boolean met(StageMetrics.Row row) {
+        return row.getErrorRate() <= maxErrorRate && row.getHistogram().getValueAtPercentile(99) <= p99Nanos;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000D);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.loadgen;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个负载阶段的延迟与错误统计
+ * <p>
+ * Journeys record into the stage they arrived in, also when they finish after the next stage started. Latencies
+ * are in nanoseconds. Recording is lock free, {@link #snapshot()} is meant to be taken once all journeys of the
+ * stage are done.
+ */
+public class StageMetrics {
+
+    public static final String JOURNEY = "journey";
+
+    private final int arrivalRate;
+
+    private final Map<String, Metric> endpoints = new ConcurrentHashMap<>();
+
+    private final Map<String, Metric> hops = new ConcurrentHashMap<>();
+
+    private final LongAdder arrivals = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    public StageMetrics(int arrivalRate) {
+        this.arrivalRate = arrivalRate;
+    }
+
+    public int getArrivalRate() {
+        return arrivalRate;
+    }
+
+    public void arrived() {
+        arrivals.increment();
+    }
+
+    /**
+     * An arrival that found every journey slot busy and was not started, it counts as a failed journey.
+     */
+    public void dropped() {
+        dropped.increment();
+        endpoint(JOURNEY).errors.increment();
+    }
+
+    public void endpoint(String name, long nanos, boolean failed) {
+        endpoint(name).record(nanos, failed);
+    }
+
+    public void hop(String name, long nanos, boolean failed) {
+        hops.computeIfAbsent(name, k -> new Metric()).record(nanos, failed);
+    }
+
+    private Metric endpoint(String name) {
+        return endpoints.computeIfAbsent(name, k -> new Metric());
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(arrivalRate, arrivals.sum(), dropped.sum(), rows(endpoints), rows(hops));
+    }
+
+    private static Map<String, Row> rows(Map<String, Metric> metrics) {
+        Map<String, Row> rows = new TreeMap<>();
+        metrics.forEach((name, metric) -> rows.put(name, new Row(metric.recorder.getIntervalHistogram(),
+                metric.errors.sum())));
+        return rows;
+    }
+
+    private static class Metric {
+
+        private final Recorder recorder = new Recorder(3);
+
+        private final LongAdder errors = new LongAdder();
+
+        void record(long nanos, boolean failed) {
+            if (failed) {
+                errors.increment();
+            } else {
+                recorder.recordValue(Math.max(1, nanos));
+            }
+        }
+    }
+
+    /**
+     * Latencies of the successful calls and the number of failed ones.
+     */
+    public static class Row {
+
+        private final Histogram histogram;
+
+        private final long errors;
+
+        Row(Histogram histogram, long errors) {
+            this.histogram = histogram;
+            this.errors = errors;
+        }
+
+        public Histogram getHistogram() {
+            return histogram;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getCount() {
+            return histogram.getTotalCount() + errors;
+        }
+
+        public double getErrorRate() {
+            long count = getCount();
+            return count == 0 ? 0 : (double) errors / count;
+        }
+    }
+
+    public static class Snapshot {
+
+        private final int arrivalRate;
+
+        private final long arrivals;
+
+        private final long dropped;
+
+        private final Map<String, Row> endpoints;
+
+        private final Map<String, Row> hops;
+
+        Snapshot(int arrivalRate, long arrivals, long dropped, Map<String, Row> endpoints, Map<String, Row> hops) {
+            this.arrivalRate = arrivalRate;
+            this.arrivals = arrivals;
+            this.dropped = dropped;
+            this.endpoints = endpoints;
+            this.hops = hops;
+        }
+
+        public int getArrivalRate() {
+            return arrivalRate;
+        }
+
+        public long getArrivals() {
+            return arrivals;
+        }
+
+        public long getDropped() {
+            return dropped;
+        }
+
+        public Map<String, Row> getEndpoints() {
+            return endpoints;
+        }
+
+        public Map<String, Row> getHops() {
+            return hops;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.payment;
+
+import org.apache.dubbo.shop.common.pojo.CreditCardInfo;
+
+import java.time.YearMonth;
+
+/**
+ * 信用卡校验
+ * <p>
+ * Accepts Visa and Mastercard numbers that pass the Luhn check and have not expired, like the payment service of
+ * the original Online Boutique. Spaces and dashes in the number are ignored.
+ */
+final class Cards {
+
+    private Cards() {
+    }
+
+    /**
+     * The digits of the card number after validation.
+     *
+     * @throws IllegalArgumentException when the card is not accepted, the message never contains the number
+     */
+    static String validate(CreditCardInfo card, YearMonth now) {
+        if (card == null || card.getCreditCardNumber() == null) {
+            throw new IllegalArgumentException("Credit card is required");
+        }
+        String number = digits(card.getCreditCardNumber());
+        if (number.length() < 12 || number.length() > 19 || !luhn(number)) {
+            throw new IllegalArgumentException("Credit card number is invalid");
+        }
+        if (!isVisa(number) && !isMastercard(number)) {
+            throw new IllegalArgumentException("Only VISA or MasterCard is accepted, card ending " + last4(number));
+        }
+        Integer year = card.getCreditCardExpirationYear();
+        Integer month = card.getCreditCardExpirationMonth();
+        if (year == null || month == null || month < 1 || month > 12 || YearMonth.of(year, month).isBefore(now)) {
+            throw new IllegalArgumentException("Credit card ending " + last4(number) + " has expired");
+        }
+        return number;
+    }
+
+    static String last4(String digits) {
+        return digits.substring(digits.length() - 4);
+    }
+
+    private static String digits(String number) {
+        StringBuilder digits = new StringBuilder(number.length());
+        for (int i = 0; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if (c != ' ' && c != '-') {
+                throw new IllegalArgumentException("Credit card number is invalid");
+            }
+        }
+        return digits.toString();
+    }
+
+    private static boolean luhn(String digits) {
+        int sum = 0;
+        boolean doubled = false;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int digit = digits.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return sum % 10 == 0;
+    }
+
+    private static boolean isVisa(String digits) {
+        return digits.charAt(0) == '4';
+    }
+
+    private static boolean isMastercard(String digits) {
+        int two = Integer.parseInt(digits.substring(0, 2));
+        int four = Integer.parseInt(digits.substring(0, 4));
+        return two >= 51 && two <= 55 || four >= 2221 && four <= 2720;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.payment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.ToString;
+
+import java.security.MessageDigest;
+
+/**
+ * 账本中的一笔交易
+ * <p>
+ * Only the last four digits of the card are kept, and while the process lives an HMAC of the card number.
+ */
+@Data
+@AllArgsConstructor
+public class LedgerEntry {
+
+    private final String transactionId;
+
+    /**
+     * 幂等键, 可为空
+     */
+    private final String idempotencyKey;
+
+    private final String currencyCode;
+
+    private final long units;
+
+    private final int nanos;
+
+    private final String cardLast4;
+
+    /**
+     * HMAC of the card number under a key that never leaves the process, so it is not written to the ledger and
+     * null for entries recovered from it.
+     */
+    @ToString.Exclude
+    private final byte[] cardFingerprint;
+
+    private final long timestampMillis;
+
+    /**
+     * Whether a retry with this key asks for the same charge. The card is compared by its fingerprint, only an
+     * entry recovered from the ledger falls back to the last four digits.
+     */
+    boolean sameCharge(String currencyCode, long units, int nanos, String cardLast4, byte[] cardFingerprint) {
+        if (!this.currencyCode.equals(currencyCode) || this.units != units || this.nanos != nanos) {
+            return false;
+        }
+        return this.cardFingerprint == null ? this.cardLast4.equals(cardLast4)
+                : MessageDigest.isEqual(this.cardFingerprint, cardFingerprint);
+    }
+}
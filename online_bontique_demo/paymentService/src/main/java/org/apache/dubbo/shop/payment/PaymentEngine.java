@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.payment;
+
+import org.apache.dubbo.shop.common.dto.request.ChargeRequest;
+import org.apache.dubbo.shop.common.pojo.Money;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.YearMonth;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 支付引擎
+ * <p>
+ * A charge is validated, checked against the per-card {@link VelocityLimiter}, appended to the
+ * {@link PaymentLedger} and acknowledged once the ledger made it durable.
+ * <p>
+ * Charges with an idempotency key go through a key table first: the first call for a key claims it with a pending
+ * future, a retry of it, concurrent or later, waits for that future and gets the same transaction without
+ * charging or counting again. A retry asking for a different amount or card is rejected. A charge that fails
+ * releases its key so it can be tried again. Keys are kept for {@code payment.idempotency.retention-seconds}
+ * and rebuilt from the ledger on start.
+ */
+@Slf4j
+@Component
+public class PaymentEngine {
+
+    private final PaymentLedger ledger;
+
+    private final VelocityLimiter velocity;
+
+    private final Map<String, CompletableFuture<LedgerEntry>> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Completed keys in completion order, for expiry.
+     */
+    private final Queue<LedgerEntry> completed = new ConcurrentLinkedQueue<>();
+
+    private final long retentionMillis;
+
+    private final int maxKeys;
+
+    private final ThreadLocal<Mac> cardHash;
+
+    private final ScheduledExecutorService housekeeper;
+
+    public PaymentEngine(@Value("${payment.ledger.dir:payment-ledger}") String ledgerDir,
+                         @Value("${payment.ledger.segment-bytes:67108864}") int segmentBytes,
+                         @Value("${payment.ledger.max-commit-delay-micros:0}") long maxCommitDelayMicros,
+                         @Value("${payment.velocity.max-charges:20}") int maxChargesPerCard,
+                         @Value("${payment.velocity.window-seconds:60}") long velocityWindowSeconds,
+                         @Value("${payment.idempotency.retention-seconds:86400}") long retentionSeconds,
+                         @Value("${payment.idempotency.max-keys:1000000}") int maxKeys) throws IOException {
+        this.retentionMillis = TimeUnit.SECONDS.toMillis(retentionSeconds);
+        this.maxKeys = maxKeys;
+        this.velocity = new VelocityLimiter(maxChargesPerCard, velocityWindowSeconds, TimeUnit.SECONDS);
+
+        // cards are only ever keyed by a hash whose secret does not outlive the process
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        SecretKeySpec key = new SecretKeySpec(secret, "HmacSHA256");
+        this.cardHash = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        this.ledger = new PaymentLedger(Paths.get(ledgerDir), segmentBytes, maxCommitDelayMicros, TimeUnit.MICROSECONDS);
+        long horizon = System.currentTimeMillis() - retentionMillis;
+        long[] count = new long[1];
+        ledger.recover(entry -> {
+            count[0]++;
+            if (entry.getIdempotencyKey() != null && entry.getTimestampMillis() >= horizon) {
+                keys.put(entry.getIdempotencyKey(), CompletableFuture.completedFuture(entry));
+                completed.add(entry);
+            }
+        });
+        log.info("Recovered {} transactions from {}, {} idempotency keys", count[0], ledgerDir, keys.size());
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "payment-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeeping, 10, 10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Charges the card, or returns the transaction of an earlier charge with the same idempotency key.
+     *
+     * @throws IllegalArgumentException when the card is not accepted or the key was used for another charge
+     * @throws IllegalStateException when the card is over its velocity limit
+     */
+    public LedgerEntry charge(ChargeRequest request) throws InterruptedException {
+        Money amount = request.getAmount();
+        if (amount == null || amount.getCurrencyCode() == null || amount.getUnits() == null || amount.getNanos() == null) {
+            throw new IllegalArgumentException("Charge amount is required");
+        }
+        String number = Cards.validate(request.getCreditCard(), YearMonth.now());
+        String last4 = Cards.last4(number);
+        byte[] fingerprint = cardHash.get().doFinal(number.getBytes(StandardCharsets.US_ASCII));
+        String idempotencyKey = request.getIdempotencyKey();
+        if (idempotencyKey == null) {
+            return execute(null, amount, last4, fingerprint);
+        }
+
+        while (true) {
+            CompletableFuture<LedgerEntry> claim = new CompletableFuture<>();
+            CompletableFuture<LedgerEntry> existing = keys.putIfAbsent(idempotencyKey, claim);
+            if (existing == null) {
+                try {
+                    LedgerEntry entry = execute(idempotencyKey, amount, last4, fingerprint);
+                    completed.add(entry);
+                    claim.complete(entry);
+                    return entry;
+                } catch (RuntimeException | InterruptedException e) {
+                    keys.remove(idempotencyKey, claim);
+                    claim.completeExceptionally(e);
+                    throw e;
+                }
+            }
+            LedgerEntry entry;
+            try {
+                entry = existing.join();
+            } catch (CompletionException e) {
+                // the first attempt failed and released the key, try to claim it again
+                continue;
+            }
+            if (!entry.sameCharge(amount.getCurrencyCode(), amount.getUnits(), amount.getNanos(), last4,
+                    fingerprint)) {
+                throw new IllegalArgumentException("Idempotency key " + idempotencyKey + " was used for a different charge");
+            }
+            log.debug("Replayed transaction {} for idempotency key {}", entry.getTransactionId(), idempotencyKey);
+            return entry;
+        }
+    }
+
+    private LedgerEntry execute(String idempotencyKey, Money amount, String last4, byte[] fingerprint)
+            throws InterruptedException {
+        if (!velocity.tryAcquire(Base64.getEncoder().encodeToString(fingerprint))) {
+            throw new IllegalStateException("Too many charges on card ending " + last4 + ", try again later");
+        }
+        LedgerEntry entry = new LedgerEntry(UUID.randomUUID().toString(), idempotencyKey, amount.getCurrencyCode(),
+                amount.getUnits(), amount.getNanos(), last4, fingerprint, System.currentTimeMillis());
+        ledger.awaitDurable(ledger.append(entry));
+        log.debug("Transaction {} processed: card ending {}, amount {} {}.{}", entry.getTransactionId(), last4,
+                amount.getCurrencyCode(), amount.getUnits(), String.format("%09d", Math.abs(amount.getNanos())));
+        return entry;
+    }
+
+    /**
+     * Number of group commits so far.
+     */
+    long commits() {
+        return ledger.commits();
+    }
+
+    private void housekeeping() {
+        try {
+            velocity.evictIdle();
+            long horizon = System.currentTimeMillis() - retentionMillis;
+            LedgerEntry head;
+            while ((head = completed.peek()) != null && (head.getTimestampMillis() < horizon || keys.size() > maxKeys)) {
+                LedgerEntry oldest = completed.poll();
+                // only drop the key if it still maps to this transaction
+                keys.computeIfPresent(oldest.getIdempotencyKey(), (key, future) ->
+                        future.isDone() && !future.isCompletedExceptionally() && future.join() == oldest ? null : future);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Payment housekeeping failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        housekeeper.shutdownNow();
+        ledger.close();
+    }
+}
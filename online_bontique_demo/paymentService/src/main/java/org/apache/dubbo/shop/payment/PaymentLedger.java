@@ -0,0 +1,382 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.payment;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 支付交易账本
+ * <p>
+ * Append-only, split into fixed size memory-mapped segment files which are never rewritten. A record is
+ * {@code [int length][int crc][long timestamp][transactionId][idempotencyKey][currency][long units][int nanos]
+ * [last4]}, strings are a short length followed by UTF-8 bytes, an absent key has length -1. The length is
+ * written last, so a record torn by a crash fails its crc and ends recovery of its segment.
+ * <p>
+ * Group commit: {@link #append(LedgerEntry)} only copies the record into the mapping and returns its end as a
+ * ticket. A single committer thread forces everything appended since its last round in one call, waiting up to
+ * {@code maxCommitDelay} for more appends to join, and {@link #awaitDurable(long)} blocks until a round covered
+ * the ticket. Concurrent charges thus share one fsync instead of paying one each.
+ */
+final class PaymentLedger implements Closeable {
+
+    private static final int HEADER = 8;
+
+    private static final String PREFIX = "ledger-";
+
+    private static final String SUFFIX = ".log";
+
+    private final Path dir;
+
+    private final int segmentSize;
+
+    private final long maxCommitDelayNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition appended = lock.newCondition();
+
+    private final Condition committed = lock.newCondition();
+
+    /**
+     * Sealed segments not forced since they were sealed.
+     */
+    private final List<Segment> sealed = new ArrayList<>();
+
+    private final TreeMap<Integer, Path> files = new TreeMap<>();
+
+    private Segment active;
+
+    /**
+     * Bytes appended since open, a ticket is the value right after its record.
+     */
+    private long written;
+
+    private long durable;
+
+    private long commits;
+
+    private boolean closed;
+
+    private final Thread committer;
+
+    PaymentLedger(Path dir, int segmentSize, long maxCommitDelay, TimeUnit unit) throws IOException {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.maxCommitDelayNanos = unit.toNanos(maxCommitDelay);
+        Files.createDirectories(dir);
+        try (Stream<Path> list = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) list::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(PREFIX) && name.endsWith(SUFFIX)) {
+                    files.put(Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length())), file);
+                }
+            }
+        }
+        this.committer = new Thread(this::commitLoop, "payment-ledger-committer");
+        committer.setDaemon(true);
+    }
+
+    /**
+     * Reads all records oldest first and opens the newest segment for appending. Must run once, before the first
+     * append.
+     */
+    void recover(Consumer<LedgerEntry> visitor) throws IOException {
+        for (var entry : files.entrySet()) {
+            Path file = entry.getValue();
+            Segment segment = new Segment(entry.getKey(), file, Math.max(segmentSize, (int) Files.size(file)));
+            segment.position = scan(segment.buffer, visitor);
+            segment.forced = segment.position;
+            if (active != null) {
+                active.close();
+            }
+            active = segment;
+        }
+        committer.start();
+    }
+
+    private static int scan(MappedByteBuffer buffer, Consumer<LedgerEntry> visitor) {
+        int offset = 0;
+        while (offset + HEADER < buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= HEADER || length > buffer.capacity() - offset || crc(buffer, offset, length) != buffer.getInt(offset + 4)) {
+                break;
+            }
+            visitor.accept(decode(buffer.slice(offset + HEADER, length - HEADER)));
+            offset += length;
+        }
+        return offset;
+    }
+
+    /**
+     * Copies the entry into the ledger, not yet durable.
+     *
+     * @return the ticket to pass to {@link #awaitDurable(long)}
+     */
+    long append(LedgerEntry entry) {
+        byte[] record = encode(entry);
+        if (record.length > segmentSize) {
+            throw new IllegalArgumentException("Ledger record of " + record.length + " bytes exceeds the segment size");
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Payment ledger is closed");
+            }
+            if (active == null || active.position + record.length > active.buffer.capacity()) {
+                roll();
+            }
+            int offset = active.position;
+            active.buffer.put(offset + 4, record, 4, record.length - 4);
+            active.buffer.putInt(offset, record.length);
+            active.position += record.length;
+            written += record.length;
+            appended.signal();
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the record of the ticket is on disk.
+     */
+    void awaitDurable(long ticket) throws InterruptedException {
+        lock.lock();
+        try {
+            while (durable < ticket) {
+                if (closed && !committer.isAlive()) {
+                    throw new IllegalStateException("Payment ledger closed before the record was committed");
+                }
+                committed.await(100, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of force rounds so far, each covering any number of appends.
+     */
+    long commits() {
+        lock.lock();
+        try {
+            return commits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void roll() {
+        int id = 1;
+        if (active != null) {
+            sealed.add(active);
+            id = active.id + 1;
+        }
+        Path file = dir.resolve(String.format("%s%08d%s", PREFIX, id, SUFFIX));
+        try {
+            active = new Segment(id, file, segmentSize);
+            files.put(id, file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void commitLoop() {
+        while (true) {
+            long target;
+            Segment segment;
+            int from;
+            int to;
+            List<Segment> toSeal;
+            lock.lock();
+            try {
+                while (durable == written && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (durable == written) {
+                    committed.signalAll();
+                    return;
+                }
+                if (maxCommitDelayNanos > 0 && !closed) {
+                    // let concurrent appends join this round
+                    long wait = maxCommitDelayNanos;
+                    while (wait > 0 && !closed) {
+                        try {
+                            wait = appended.awaitNanos(wait);
+                        } catch (InterruptedException e) {
+                            break;
+                        }
+                    }
+                }
+                target = written;
+                segment = active;
+                from = segment.forced;
+                to = segment.position;
+                toSeal = new ArrayList<>(sealed);
+                sealed.clear();
+            } finally {
+                lock.unlock();
+            }
+
+            for (Segment old : toSeal) {
+                old.buffer.force();
+                old.close();
+            }
+            if (to > from) {
+                segment.buffer.force(from, to - from);
+            }
+
+            lock.lock();
+            try {
+                segment.forced = Math.max(segment.forced, to);
+                durable = target;
+                commits++;
+                committed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting appends, commits what was appended and unmaps the active segment.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            committer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (active != null) {
+            active.buffer.force();
+            active.close();
+        }
+    }
+
+    static byte[] encode(LedgerEntry entry) {
+        byte[] transactionId = entry.getTransactionId().getBytes(StandardCharsets.UTF_8);
+        byte[] key = entry.getIdempotencyKey() == null ? null : entry.getIdempotencyKey().getBytes(StandardCharsets.UTF_8);
+        byte[] currency = entry.getCurrencyCode().getBytes(StandardCharsets.UTF_8);
+        byte[] last4 = entry.getCardLast4().getBytes(StandardCharsets.UTF_8);
+        int length = HEADER + 8 + 2 + transactionId.length + 2 + (key == null ? 0 : key.length) + 2 + currency.length
+                + 8 + 4 + 2 + last4.length;
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(length).putInt(0).putLong(entry.getTimestampMillis());
+        putString(buffer, transactionId);
+        putString(buffer, key);
+        putString(buffer, currency);
+        buffer.putLong(entry.getUnits()).putInt(entry.getNanos());
+        putString(buffer, last4);
+        byte[] record = buffer.array();
+        CRC32 crc = new CRC32();
+        crc.update(record, HEADER, record.length - HEADER);
+        buffer.putInt(4, (int) crc.getValue());
+        return record;
+    }
+
+    private static LedgerEntry decode(ByteBuffer payload) {
+        long timestamp = payload.getLong();
+        String transactionId = getString(payload);
+        String key = getString(payload);
+        String currency = getString(payload);
+        long units = payload.getLong();
+        int nanos = payload.getInt();
+        String last4 = getString(payload);
+        return new LedgerEntry(transactionId, key, currency, units, nanos, last4, null, timestamp);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) bytes.length).put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(MappedByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset + HEADER, length - HEADER));
+        return (int) crc.getValue();
+    }
+
+    private static final class Segment {
+
+        final int id;
+
+        final FileChannel channel;
+
+        final MappedByteBuffer buffer;
+
+        int position;
+
+        /**
+         * Offset up to which the segment is known to be on disk.
+         */
+        int forced;
+
+        Segment(int id, Path file, int size) throws IOException {
+            this.id = id;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // the mapping stays valid, nothing to recover
+            }
+        }
+    }
+}
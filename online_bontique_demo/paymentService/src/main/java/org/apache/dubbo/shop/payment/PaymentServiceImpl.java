@@ -22,30 +22,31 @@ import org.apache.dubbo.shop.common.dto.request.ChargeRequest;
 import org.apache.dubbo.shop.common.dto.response.ChargeResponse;
 import org.apache.dubbo.shop.service.PaymentService;
 
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.UUID;
-
+/**
+ * Charges through the {@link PaymentEngine}, a request repeated with the same idempotency key returns the first
+ * transaction, so cluster failover may safely retry it.
+ */
 @DubboService
 @Service
-@Slf4j
 public class PaymentServiceImpl implements PaymentService {
+
+    private final PaymentEngine engine;
+
+    public PaymentServiceImpl(PaymentEngine engine) {
+        this.engine = engine;
+    }
     
     @Override
     public ChargeResponse charge(ChargeRequest request) {
-        // 验证信用卡信息（可以使用第三方库进行验证）
-        // 这里只是简单示例，没有实际验证逻辑
-        
-        log.info("Transaction processed: {}, Amount: {}{}{}",
-                request.getCreditCard().getCreditCardNumber(),
-                request.getAmount().getCurrencyCode(),
-                request.getAmount().getUnits(),
-                request.getAmount().getNanos());
-        
-        String transactionId = UUID.randomUUID().toString();
         ChargeResponse response = new ChargeResponse();
-        response.setTransactionId(transactionId);
+        try {
+            response.setTransactionId(engine.charge(request).getTransactionId());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while committing the charge", e);
+        }
         return response;
     }
 }
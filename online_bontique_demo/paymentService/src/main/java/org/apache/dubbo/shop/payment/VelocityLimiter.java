@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.payment;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按卡限频
+ * <p>
+ * Allows at most {@code maxCharges} per card within a sliding window, estimated from the count of the current
+ * fixed window plus the previous one weighted by how much of it still overlaps. The state of a card is packed
+ * into one {@link AtomicLong} as {@code [24 bit window][20 bit previous count][20 bit current count]} and
+ * updated by compare-and-set, so charges on the same card never take a lock.
+ */
+final class VelocityLimiter {
+
+    private static final int COUNT_BITS = 20;
+
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private static final long WINDOW_MASK = (1L << 24) - 1;
+
+    private final Map<String, AtomicLong> cards = new ConcurrentHashMap<>();
+
+    private final int maxCharges;
+
+    private final long windowNanos;
+
+    private final long origin = System.nanoTime();
+
+    VelocityLimiter(int maxCharges, long window, TimeUnit unit) {
+        if (maxCharges <= 0 || maxCharges > COUNT_MASK) {
+            throw new IllegalArgumentException("Max charges must be in [1, " + COUNT_MASK + "]: " + maxCharges);
+        }
+        this.maxCharges = maxCharges;
+        this.windowNanos = unit.toNanos(window);
+    }
+
+    /**
+     * Counts a charge of the card unless that would exceed the limit.
+     *
+     * @return false when the card is over its limit, nothing is counted then
+     */
+    boolean tryAcquire(String card) {
+        long elapsed = System.nanoTime() - origin;
+        long now = elapsed / windowNanos & WINDOW_MASK;
+        double overlap = 1 - (double) (elapsed % windowNanos) / windowNanos;
+        AtomicLong state = cards.computeIfAbsent(card, k -> new AtomicLong(pack(now, 0, 0)));
+        while (true) {
+            long window = now;
+            long current = state.get();
+            long previousCount;
+            long count;
+            long stateWindow = current >>> 2 * COUNT_BITS;
+            if ((window + 1 & WINDOW_MASK) == stateWindow) {
+                // another thread already moved on to the next window, count this charge there
+                window = stateWindow;
+            }
+            if (stateWindow == window) {
+                previousCount = current >>> COUNT_BITS & COUNT_MASK;
+                count = current & COUNT_MASK;
+            } else if ((stateWindow + 1 & WINDOW_MASK) == window) {
+                previousCount = current & COUNT_MASK;
+                count = 0;
+            } else {
+                previousCount = 0;
+                count = 0;
+            }
+            if (previousCount * overlap + count + 1 > maxCharges) {
+                return false;
+            }
+            if (state.compareAndSet(current, pack(window, previousCount, count + 1))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Forgets cards without a charge in the current or previous window. A charge racing with the removal may go
+     * uncounted, which only errs on the lenient side.
+     */
+    void evictIdle() {
+        long window = (System.nanoTime() - origin) / windowNanos & WINDOW_MASK;
+        cards.entrySet().removeIf(entry -> {
+            long stateWindow = entry.getValue().get() >>> 2 * COUNT_BITS;
+            return stateWindow != window && (stateWindow + 1 & WINDOW_MASK) != window;
+        });
+    }
+
+    int size() {
+        return cards.size();
+    }
+
+    private static long pack(long window, long previousCount, long count) {
+        return window << 2 * COUNT_BITS | previousCount << COUNT_BITS | count;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.payment;
+
+import org.apache.dubbo.shop.common.dto.request.ChargeRequest;
+import org.apache.dubbo.shop.common.pojo.CreditCardInfo;
+import org.apache.dubbo.shop.common.pojo.Money;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Charge throughput of 16 concurrent callers against a ledger in a temporary directory: {@code charge} is a new
+ * charge, durable before it returns, {@code retry} repeats an already committed one. Raising
+ * {@code commitDelayMicros} trades latency for fewer, larger group commits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class PaymentEngineBenchmark {
+
+    @Param({"0", "200"})
+    public long commitDelayMicros;
+
+    private Path dir;
+
+    private PaymentEngine engine;
+
+    private ChargeRequest committed;
+
+    @Setup
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("payment-ledger");
+        engine = new PaymentEngine(dir.toString(), 64 << 20, commitDelayMicros, 1_000_000, 1, 86400, 1_000_000);
+        committed = request("committed");
+        engine.charge(committed);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        engine.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public LedgerEntry charge() throws InterruptedException {
+        return engine.charge(request(UUID.randomUUID().toString()));
+    }
+
+    @Benchmark
+    public LedgerEntry retry() throws InterruptedException {
+        return engine.charge(committed);
+    }
+
+    private static ChargeRequest request(String idempotencyKey) {
+        return new ChargeRequest(new Money("USD", 42L, 990_000_000),
+                new CreditCardInfo("4432-8015-6152-0454", 123, 2099, 1), idempotencyKey);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PaymentEngineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.service.productcatalogs;
+
+import org.apache.dubbo.shop.common.pojo.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 商品目录快照
+ * <p>
+ * An immutable view of the catalog: products by id for O(1) lookup, and an inverted index from token to the
+ * products whose name, categories or description contain it. A reload builds a new snapshot and swaps it in,
+ * readers never see a half built one.
+ */
+final class CatalogSnapshot {
+
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(Collections.emptyList());
+
+    private static final float NAME_WEIGHT = 3;
+
+    private static final float CATEGORY_WEIGHT = 2;
+
+    private static final float DESCRIPTION_WEIGHT = 1;
+
+    private final List<Product> products;
+
+    private final Map<String, Product> byId;
+
+    /**
+     * token -> postings, a posting is the ordinal of a product and the weight of the token in it
+     */
+    private final Map<String, Posting[]> index;
+
+    /**
+     * sorted tokens, used to expand a query token that is a prefix of indexed ones
+     */
+    private final String[] tokens;
+
+    CatalogSnapshot(List<Product> products) {
+        this.products = Collections.unmodifiableList(new ArrayList<>(products));
+        Map<String, Product> byId = new HashMap<>(products.size() * 2);
+        Map<String, Map<Integer, Float>> weights = new HashMap<>();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            byId.put(product.getId(), product);
+            addTokens(weights, i, product.getName(), NAME_WEIGHT);
+            if (product.getCategories() != null) {
+                for (String category : product.getCategories()) {
+                    addTokens(weights, i, category, CATEGORY_WEIGHT);
+                }
+            }
+            addTokens(weights, i, product.getDescription(), DESCRIPTION_WEIGHT);
+        }
+        this.byId = byId;
+        this.index = new HashMap<>(weights.size() * 2);
+        for (Map.Entry<String, Map<Integer, Float>> entry : weights.entrySet()) {
+            Posting[] postings = new Posting[entry.getValue().size()];
+            int j = 0;
+            for (Map.Entry<Integer, Float> posting : entry.getValue().entrySet()) {
+                postings[j++] = new Posting(posting.getKey(), posting.getValue());
+            }
+            index.put(entry.getKey(), postings);
+        }
+        this.tokens = index.keySet().toArray(new String[0]);
+        Arrays.sort(tokens);
+    }
+
+    List<Product> products() {
+        return products;
+    }
+
+    Product get(String id) {
+        return id == null ? null : byId.get(id);
+    }
+
+    /**
+     * Ranks the products matching any token of the query. A token that matches nothing exactly is expanded to the
+     * indexed tokens it is a prefix of. Each matched token adds its weight in the product times its inverse document
+     * frequency, so rare tokens and name matches rank first.
+     */
+    List<Product> search(String query) {
+        Set<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty() || products.isEmpty()) {
+            return Collections.emptyList();
+        }
+        float[] scores = new float[products.size()];
+        boolean matched = false;
+        for (String token : queryTokens) {
+            Posting[] postings = index.get(token);
+            if (postings != null) {
+                score(scores, postings);
+                matched = true;
+                continue;
+            }
+            int from = -Arrays.binarySearch(tokens, token) - 1;
+            for (int i = from; i < tokens.length && tokens[i].startsWith(token); i++) {
+                score(scores, index.get(tokens[i]));
+                matched = true;
+            }
+        }
+        if (!matched) {
+            return Collections.emptyList();
+        }
+        List<Integer> hits = new ArrayList<>();
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] > 0) {
+                hits.add(i);
+            }
+        }
+        hits.sort((a, b) -> scores[a] != scores[b] ? Float.compare(scores[b], scores[a]) : Integer.compare(a, b));
+        List<Product> results = new ArrayList<>(hits.size());
+        for (Integer hit : hits) {
+            results.add(products.get(hit));
+        }
+        return results;
+    }
+
+    private void score(float[] scores, Posting[] postings) {
+        float idf = (float) Math.log(1 + (double) products.size() / postings.length);
+        for (Posting posting : postings) {
+            scores[posting.product] += posting.weight * idf;
+        }
+    }
+
+    private static void addTokens(Map<String, Map<Integer, Float>> weights, int product, String text, float weight) {
+        for (String token : tokenize(text)) {
+            weights.computeIfAbsent(token, k -> new HashMap<>()).merge(product, weight, Float::sum);
+        }
+    }
+
+    static Set<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static final class Posting {
+
+        private final int product;
+
+        private final float weight;
+
+        private Posting(int product, float weight) {
+            this.product = product;
+            this.weight = weight;
+        }
+    }
+}
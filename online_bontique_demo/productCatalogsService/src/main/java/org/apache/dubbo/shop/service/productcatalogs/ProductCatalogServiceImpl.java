@@ -19,53 +19,128 @@ package org.apache.dubbo.shop.service.productcatalogs;
 
 import org.apache.dubbo.config.annotation.DubboService;
 import org.apache.dubbo.shop.common.dto.request.GetProductRequest;
+import org.apache.dubbo.shop.common.dto.request.SearchProductsRequest;
 import org.apache.dubbo.shop.common.dto.response.ListProductsResponse;
+import org.apache.dubbo.shop.common.dto.response.SearchProductsResponse;
 import org.apache.dubbo.shop.common.pojo.Empty;
 import org.apache.dubbo.shop.common.pojo.Product;
 import org.apache.dubbo.shop.service.ProductCatalogService;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Serves the catalog from an immutable {@link CatalogSnapshot}. Products are read from the bundled products.json, or
+ * from {@code catalog.products-file} when set, which is then polled every {@code catalog.reload-interval-seconds}
+ * and swapped in on change without blocking readers.
+ */
+@Slf4j
 @DubboService
 @Service
 public class ProductCatalogServiceImpl implements ProductCatalogService, Serializable {
 
-    private List<Product> products = new ArrayList<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Path productsFile;
+
+    private volatile CatalogSnapshot catalog = CatalogSnapshot.EMPTY;
+
+    private volatile FileTime lastModified;
+
+    private final ScheduledExecutorService reloader;
 
-    // Load products from JSON file
-    {
-        loadProductsFromJson();
+    public ProductCatalogServiceImpl(@Value("${catalog.products-file:}") String productsFile,
+                                     @Value("${catalog.reload-interval-seconds:10}") long reloadIntervalSeconds) {
+        this.productsFile = productsFile.isEmpty() ? null : Paths.get(productsFile);
+        reload();
+        if (this.productsFile != null && reloadIntervalSeconds > 0) {
+            reloader = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "catalog-reloader");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reloader.scheduleWithFixedDelay(this::reload, reloadIntervalSeconds, reloadIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            reloader = null;
+        }
     }
 
     @Override
     public ListProductsResponse listProducts(Empty request) {
-        return new ListProductsResponse(products);
+        return new ListProductsResponse(catalog.products());
     }
 
     @Override
     public Product getProduct(GetProductRequest request) {
-        return products.stream()
-                .filter(product -> product.getId().equals(request.getId()))
-                .findFirst()
-                .orElse(null);
+        return catalog.get(request.getId());
+    }
+
+    @Override
+    public List<Product> getProducts(List<String> ids) {
+        CatalogSnapshot catalog = this.catalog;
+        List<Product> products = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            products.add(catalog.get(id));
+        }
+        return products;
     }
 
-    private void loadProductsFromJson() {
-        ObjectMapper objectMapper = new ObjectMapper();
+    @Override
+    public SearchProductsResponse searchProducts(SearchProductsRequest request) {
+        return new SearchProductsResponse(catalog.search(request.getQuery()));
+    }
+
+    /**
+     * Loads the products and swaps in a new snapshot, a broken file keeps the current one.
+     */
+    void reload() {
         try {
-            ClassPathResource resource = new ClassPathResource("products.json");
-            ProductsWrapper productsWrapper = objectMapper.readValue(resource.getInputStream(), ProductsWrapper.class);
-            this.products = productsWrapper.getProducts();
-        } catch (IOException e) {
-            e.printStackTrace();
+            if (productsFile == null) {
+                try (InputStream in = new ClassPathResource("products.json").getInputStream()) {
+                    catalog = new CatalogSnapshot(read(in));
+                }
+                return;
+            }
+            FileTime modified = Files.getLastModifiedTime(productsFile);
+            if (modified.equals(lastModified)) {
+                return;
+            }
+            try (InputStream in = Files.newInputStream(productsFile)) {
+                catalog = new CatalogSnapshot(read(in));
+            }
+            lastModified = modified;
+            log.info("Loaded {} products from {}", catalog.products().size(), productsFile);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to load products, keeping {} products", catalog.products().size(), e);
+        }
+    }
+
+    private List<Product> read(InputStream in) throws IOException {
+        return objectMapper.readValue(in, ProductsWrapper.class).getProducts();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (reloader != null) {
+            reloader.shutdownNow();
         }
     }
 
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.service.recommendation;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Scores a candidate by how often it was bought together with the products in the request. The counts come from
+ * {@code recommendation.co-purchase-file}, a JSON object of productId to an object of productId to count.
+ * <p>
+ * Enabled with {@code recommendation.scorer=co-purchase}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "recommendation.scorer", havingValue = "co-purchase")
+public class CoPurchaseScorer implements ProductScorer {
+
+    private final Map<String, Map<String, Integer>> coPurchases;
+
+    public CoPurchaseScorer(@Value("${recommendation.co-purchase-file}") String coPurchaseFile) throws IOException {
+        Map<String, Map<String, Integer>> coPurchases;
+        try (InputStream in = Files.newInputStream(Paths.get(coPurchaseFile))) {
+            coPurchases = new ObjectMapper().readValue(in, new TypeReference<HashMap<String, Map<String, Integer>>>() {
+            });
+        }
+        this.coPurchases = Collections.unmodifiableMap(coPurchases);
+        log.info("Loaded co-purchase counts of {} products from {}", coPurchases.size(), coPurchaseFile);
+    }
+
+    @Override
+    public double score(String candidate, Collection<String> context) {
+        double score = 0;
+        for (String productId : context) {
+            Map<String, Integer> counts = coPurchases.get(productId);
+            if (counts != null) {
+                score += counts.getOrDefault(candidate, 0);
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.service.recommendation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Uniform sampling of distinct product ids without copying the catalog.
+ */
+final class ProductSampler {
+
+    private ProductSampler() {
+    }
+
+    /**
+     * Picks up to {@code count} distinct ids not in {@code exclude}, in random order. Floyd's algorithm when nothing
+     * is excluded, O(count); reservoir sampling over the catalog otherwise, O(catalog) without extra copies.
+     */
+    static List<String> sample(String[] ids, Set<String> exclude, int count, Random random) {
+        String[] picked = exclude.isEmpty() ? floyd(ids, count, random) : reservoir(ids, exclude, count, random);
+        for (int i = picked.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String tmp = picked[i];
+            picked[i] = picked[j];
+            picked[j] = tmp;
+        }
+        return new ArrayList<>(Arrays.asList(picked));
+    }
+
+    private static String[] floyd(String[] ids, int count, Random random) {
+        int n = ids.length;
+        if (n <= count) {
+            return ids.clone();
+        }
+        int[] chosen = new int[count];
+        int size = 0;
+        for (int j = n - count; j < n; j++) {
+            int t = random.nextInt(j + 1);
+            int pick = contains(chosen, size, t) ? j : t;
+            chosen[size++] = pick;
+        }
+        String[] picked = new String[count];
+        for (int i = 0; i < count; i++) {
+            picked[i] = ids[chosen[i]];
+        }
+        return picked;
+    }
+
+    private static String[] reservoir(String[] ids, Set<String> exclude, int count, Random random) {
+        String[] reservoir = new String[count];
+        int seen = 0;
+        for (String id : ids) {
+            if (exclude.contains(id)) {
+                continue;
+            }
+            if (seen < count) {
+                reservoir[seen] = id;
+            } else {
+                int r = random.nextInt(seen + 1);
+                if (r < count) {
+                    reservoir[r] = id;
+                }
+            }
+            seen++;
+        }
+        return seen < count ? Arrays.copyOf(reservoir, seen) : reservoir;
+    }
+
+    private static boolean contains(int[] values, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
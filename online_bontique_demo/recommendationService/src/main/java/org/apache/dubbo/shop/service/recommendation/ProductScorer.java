@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.service.recommendation;
+
+import java.util.Collection;
+
+/**
+ * 推荐打分
+ * <p>
+ * Optional ranking for recommendations. When a bean of this type exists, candidates are ordered by their score for
+ * the products the user is looking at; candidates scoring 0 are only used to fill up, picked at random.
+ */
+public interface ProductScorer {
+
+    /**
+     * @param candidate  product that may be recommended
+     * @param context    products in the request, may be empty
+     */
+    double score(String candidate, Collection<String> context);
+}
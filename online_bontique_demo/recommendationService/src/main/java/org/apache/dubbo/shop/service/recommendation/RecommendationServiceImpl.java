@@ -26,47 +26,141 @@ import org.apache.dubbo.shop.common.pojo.Product;
 import org.apache.dubbo.shop.service.ProductCatalogService;
 import org.apache.dubbo.shop.service.RecommendationService;
 
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Recommends from a local snapshot of the catalog ids instead of fetching the whole catalog on every call. The
+ * snapshot is loaded on first use and refreshed in the background once older than
+ * {@code recommendation.catalog-refresh-seconds}, requests keep using the current one meanwhile.
+ */
+@Slf4j
 @DubboService
 @Service
 public class RecommendationServiceImpl implements RecommendationService {
     
+    private static final int RECOMMENDATIONS = 4;
+    
     @DubboReference
     private ProductCatalogService productCatalogService;
+    
+    private final ProductScorer scorer;
+    
+    private final long refreshNanos;
+    
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "recommendation-catalog-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    
+    private volatile String[] catalogIds;
+    
+    private volatile long loadedAt;
+    
+    public RecommendationServiceImpl(ObjectProvider<ProductScorer> scorer,
+                                     @Value("${recommendation.catalog-refresh-seconds:30}") long refreshSeconds) {
+        this.scorer = scorer.getIfAvailable();
+        this.refreshNanos = TimeUnit.SECONDS.toNanos(refreshSeconds);
+    }
+    
     @Override
     public ListRecommendationsResponse listRecommendations(ListRecommendationsRequest request) {
-        // 获取所有产品
-        List<Product> products = productCatalogService.listProducts(new Empty()).getProducts();
-        
+        String[] ids = catalogIds();
+        List<String> context = request.getProductIds() == null ? Collections.emptyList() : request.getProductIds();
         // 过滤出未在请求产品ID列表中的产品
-        List<String> filteredProductIds = products.stream()
-                .map(Product::getId)
-                .filter(id -> !request.getProductIds().contains(id))
-                .collect(Collectors.toList());
-        
-        // 从过滤后的ID列表中随机选择4个
-        List<String> recommendedProductIds = sample(filteredProductIds, 4);
-        
-        // 返回推荐结果
+        Set<String> exclude = context.isEmpty() ? Collections.emptySet() : new HashSet<>(context);
+        List<String> recommendedProductIds = scorer == null
+                ? ProductSampler.sample(ids, exclude, RECOMMENDATIONS, ThreadLocalRandom.current())
+                : ranked(ids, exclude, context);
         return new ListRecommendationsResponse(recommendedProductIds);
     }
     
-    private List<String> sample(List<String> source, Integer count) {
-        if (source.size() <= count) {
-            return source;
+    /**
+     * The best scoring candidates, filled up with random ones when fewer than {@link #RECOMMENDATIONS} score.
+     */
+    private List<String> ranked(String[] ids, Set<String> exclude, List<String> context) {
+        List<String> scored = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        for (String id : ids) {
+            if (exclude.contains(id)) {
+                continue;
+            }
+            double score = scorer.score(id, context);
+            if (score > 0) {
+                scored.add(id);
+                scores.add(score);
+            }
         }
-        List<String> result = new ArrayList<>();
-        while (result.size() < count) {
-            int index = (int) (Math.random() * source.size());
-            result.add(source.remove(index));
+        List<Integer> order = new ArrayList<>(scored.size());
+        for (int i = 0; i < scored.size(); i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> Double.compare(scores.get(b), scores.get(a)));
+        List<String> result = new ArrayList<>(RECOMMENDATIONS);
+        for (int i = 0; i < order.size() && result.size() < RECOMMENDATIONS; i++) {
+            result.add(scored.get(order.get(i)));
+        }
+        if (result.size() < RECOMMENDATIONS) {
+            Set<String> taken = new HashSet<>(exclude);
+            taken.addAll(result);
+            result.addAll(ProductSampler.sample(ids, taken, RECOMMENDATIONS - result.size(), ThreadLocalRandom.current()));
         }
         return result;
     }
+    
+    private String[] catalogIds() {
+        String[] ids = catalogIds;
+        if (ids == null) {
+            synchronized (this) {
+                if (catalogIds == null) {
+                    loadCatalogIds();
+                }
+                return catalogIds;
+            }
+        }
+        if (System.nanoTime() - loadedAt > refreshNanos && refreshing.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                try {
+                    loadCatalogIds();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to refresh catalog ids, keeping {} ids", catalogIds.length, e);
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+        return ids;
+    }
+    
+    private void loadCatalogIds() {
+        List<Product> products = productCatalogService.listProducts(new Empty()).getProducts();
+        String[] ids = new String[products.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = products.get(i).getId();
+        }
+        loadedAt = System.nanoTime();
+        catalogIds = ids;
+    }
+    
+    @PreDestroy
+    public void close() {
+        refresher.shutdownNow();
+    }
 }
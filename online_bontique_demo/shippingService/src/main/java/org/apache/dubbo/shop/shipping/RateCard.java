@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.shipping;
+
+import org.apache.dubbo.shop.common.pojo.Address;
+import org.apache.dubbo.shop.common.pojo.CartItem;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 运费费率表
+ * <p>
+ * A shipment is priced by its zone, found from the country of the address, and its weight, the sum of the
+ * product weights times their quantities. Each zone prices weight brackets, anything above the heaviest bracket
+ * pays the per extra kilogram rate on top of it, started kilograms count in full. Prices are kept as nanos.
+ * <p>
+ * An address without a country is quoted for the default zone, so the cart page can show an estimate before the
+ * address is known, a country of no zone gets the fallback zone.
+ */
+final class RateCard {
+
+    private static final long NANOS_PER_UNIT = 1_000_000_000L;
+
+    private final String currencyCode;
+
+    private final long defaultItemGrams;
+
+    private final Map<String, Long> productGrams;
+
+    private final Map<String, Integer> zonesByCountry = new HashMap<>();
+
+    private final int defaultZone;
+
+    private final int fallbackZone;
+
+    private final long[][] bracketGrams;
+
+    private final long[][] bracketNanos;
+
+    private final long[] perExtraKgNanos;
+
+    private RateCard(Config config) {
+        this.currencyCode = config.getCurrencyCode();
+        this.defaultItemGrams = config.getDefaultItemGrams();
+        this.productGrams = new HashMap<>(config.getProductGrams());
+        List<Zone> zones = config.getZones();
+        if (zones == null || zones.isEmpty()) {
+            throw new IllegalArgumentException("Rate card has no zones");
+        }
+        bracketGrams = new long[zones.size()][];
+        bracketNanos = new long[zones.size()][];
+        perExtraKgNanos = new long[zones.size()];
+        Map<String, Integer> zonesByName = new HashMap<>();
+        for (int i = 0; i < zones.size(); i++) {
+            Zone zone = zones.get(i);
+            zonesByName.put(zone.getName(), i);
+            for (String country : zone.getCountries()) {
+                zonesByCountry.put(country.trim().toLowerCase(Locale.ROOT), i);
+            }
+            List<Bracket> brackets = new ArrayList<>(zone.getBrackets());
+            brackets.sort((a, b) -> Long.compare(a.getUpToGrams(), b.getUpToGrams()));
+            if (brackets.isEmpty()) {
+                throw new IllegalArgumentException("Zone " + zone.getName() + " has no brackets");
+            }
+            bracketGrams[i] = new long[brackets.size()];
+            bracketNanos[i] = new long[brackets.size()];
+            for (int j = 0; j < brackets.size(); j++) {
+                bracketGrams[i][j] = brackets.get(j).getUpToGrams();
+                bracketNanos[i][j] = nanos(brackets.get(j).getPrice());
+            }
+            perExtraKgNanos[i] = nanos(zone.getPerExtraKg());
+        }
+        this.defaultZone = zone(zonesByName, config.getDefaultZone());
+        this.fallbackZone = zone(zonesByName, config.getFallbackZone());
+    }
+
+    static RateCard parse(InputStream in) throws IOException {
+        return new RateCard(new ObjectMapper().readValue(in, Config.class));
+    }
+
+    String currencyCode() {
+        return currencyCode;
+    }
+
+    int zoneOf(Address address) {
+        String country = address == null ? null : address.getCountry();
+        if (country == null || country.isBlank()) {
+            return defaultZone;
+        }
+        Integer zone = zonesByCountry.get(country.trim().toLowerCase(Locale.ROOT));
+        return zone == null ? fallbackZone : zone;
+    }
+
+    long weightGrams(List<CartItem> items) {
+        long grams = 0;
+        if (items == null) {
+            return grams;
+        }
+        for (CartItem item : items) {
+            Integer quantity = item.getQuantity();
+            if (quantity == null || quantity <= 0) {
+                continue;
+            }
+            long unit = productGrams.getOrDefault(item.getProductId(), defaultItemGrams);
+            grams = Math.addExact(grams, Math.multiplyExact(unit, quantity));
+        }
+        return grams;
+    }
+
+    /**
+     * The price of a shipment in nanos, nothing to ship is free.
+     */
+    long quoteNanos(int zone, long grams) {
+        if (grams <= 0) {
+            return 0;
+        }
+        long[] limits = bracketGrams[zone];
+        for (int i = 0; i < limits.length; i++) {
+            if (grams <= limits[i]) {
+                return bracketNanos[zone][i];
+            }
+        }
+        int last = limits.length - 1;
+        long extraKg = (grams - limits[last] + 999) / 1000;
+        return Math.addExact(bracketNanos[zone][last], Math.multiplyExact(extraKg, perExtraKgNanos[zone]));
+    }
+
+    static long units(long nanos) {
+        return nanos / NANOS_PER_UNIT;
+    }
+
+    static int nanosPart(long nanos) {
+        return (int) (nanos % NANOS_PER_UNIT);
+    }
+
+    private static int zone(Map<String, Integer> zonesByName, String name) {
+        Integer zone = zonesByName.get(name);
+        if (zone == null) {
+            throw new IllegalArgumentException("Unknown zone " + name);
+        }
+        return zone;
+    }
+
+    private static long nanos(String price) {
+        return new BigDecimal(price).movePointRight(9).longValueExact();
+    }
+
+    // 内部类用于解析JSON
+    @Data
+    public static class Config {
+        private String currencyCode;
+        private long defaultItemGrams;
+        private Map<String, Long> productGrams = new HashMap<>();
+        private String defaultZone;
+        private String fallbackZone;
+        private List<Zone> zones;
+    }
+
+    @Data
+    public static class Zone {
+        private String name;
+        private List<String> countries = new ArrayList<>();
+        private List<Bracket> brackets = new ArrayList<>();
+        private String perExtraKg;
+    }
+
+    @Data
+    public static class Bracket {
+        private long upToGrams;
+        private String price;
+    }
+}
@@ -26,65 +26,89 @@ import org.apache.dubbo.shop.common.pojo.Money;
 import org.apache.dubbo.shop.service.ShippingService;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
-import java.util.Random;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * Quotes from the {@link RateCard} read at startup, the bundled shipping-rates.json or {@code shipping.rates-file}.
+ * A quote only depends on the zone and the total weight, so quotes are memoized by exactly that pair, which also
+ * covers every cart adding up to the same weight.
+ */
 @DubboService
 @Service
 @Slf4j
 public class ShippingServiceImpl implements ShippingService {
+
+    private final RateCard rateCard;
+
+    /**
+     * zone << 48 | grams -> nanos, access ordered and guarded by itself
+     */
+    private final Map<Long, Long> quotes;
+
+    private final TrackingIdGenerator trackingIds;
+
+    public ShippingServiceImpl(@Value("${shipping.rates-file:}") String ratesFile,
+                               @Value("${shipping.quote-cache.max-entries:10000}") int maxCachedQuotes,
+                               @Value("${shipping.node-id}") int nodeId) throws IOException {
+        try (InputStream in = ratesFile.isEmpty()
+                ? new ClassPathResource("shipping-rates.json").getInputStream()
+                : Files.newInputStream(Paths.get(ratesFile))) {
+            this.rateCard = RateCard.parse(in);
+        }
+        // the rate card never changes, so a quote only leaves the cache to make room. Carts mostly weigh the same
+        // few products, the least recently quoted weight is the one least likely to come back
+        this.quotes = new LinkedHashMap<Long, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > maxCachedQuotes;
+            }
+        };
+        this.trackingIds = new TrackingIdGenerator(nodeId);
+    }
     
     @Override
     public GetQuoteResponse getQuote(GetQuoteRequest request) {
-        log.info("[GetQuote] received request");
-        
-        Money costUsd = new Money();
-        costUsd.setCurrencyCode("USD");
-        costUsd.setNanos(99 * 1_000_000);
-        costUsd.setUnits(8L);
+        int zone = rateCard.zoneOf(request.getAddress());
+        long grams = rateCard.weightGrams(request.getItems());
+        long nanos;
+        if (grams >>> 48 != 0) {
+            // too heavy to be a key, and to be a cart
+            nanos = rateCard.quoteNanos(zone, grams);
+        } else {
+            long key = (long) zone << 48 | grams;
+            Long cached;
+            synchronized (quotes) {
+                cached = quotes.get(key);
+            }
+            if (cached == null) {
+                cached = rateCard.quoteNanos(zone, grams);
+                synchronized (quotes) {
+                    quotes.put(key, cached);
+                }
+            }
+            nanos = cached;
+        }
+        log.debug("[GetQuote] zone {}, {} g: {} nanos", zone, grams, nanos);
         
         GetQuoteResponse response = new GetQuoteResponse();
-        response.setCostUsd(costUsd);
-        
-        log.info("[GetQuote] completed request");
+        response.setCostUsd(new Money(rateCard.currencyCode(), RateCard.units(nanos), RateCard.nanosPart(nanos)));
         return response;
     }
     
     @Override
     public ShipOrderResponse shipOrder(ShipOrderRequest request) {
-        log.info("[ShipOrder] received request");
-        
-        String baseAddress = String.format("%s, %s, %s", request.getAddress().getStreetAddress(), request.getAddress().getCity(), request.getAddress().getState());
-        String trackingId = createTrackingId(baseAddress);
-        
         ShipOrderResponse response = new ShipOrderResponse();
-        response.setTrackingId(trackingId);
-        
-        log.info("[ShipOrder] completed request");
+        response.setTrackingId(trackingIds.next());
+        log.debug("[ShipOrder] tracking id {}", response.getTrackingId());
         return response;
     }
-    
-    private String createTrackingId(String salt) {
-        Random random = new Random();
-        return String.format("%c%c-%d%s-%d%s",
-                getRandomLetterCode(random),
-                getRandomLetterCode(random),
-                salt.length(),
-                getRandomNumber(random, 3),
-                salt.length() / 2,
-                getRandomNumber(random, 7));
-    }
-    
-    private char getRandomLetterCode(Random random) {
-        return (char) (65 + random.nextInt(26));
-    }
-    
-    private String getRandomNumber(Random random, int digits) {
-        StringBuilder str = new StringBuilder();
-        for (int i = 0; i < digits; i++) {
-            str.append(random.nextInt(10));
-        }
-        return str.toString();
-    }
 }
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.dubbo.shop.shipping;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 运单号生成
+ * <p>
+ * An id is a 12 bit node id and a 52 bit sequence, written as 13 Crockford base32 characters grouped
+ * {@code XXX-XXXXX-XXXXX}. The sequence starts at the current time in milliseconds times 1024 and counts up, so a
+ * restarted process does not repeat ids of its earlier runs unless it averaged more than 1024 ids per
+ * millisecond. Distinct nodes need distinct {@code shipping.node-id}s; there is no default, since a random one
+ * would sooner or later collide with another replica's. Generating an id allocates just the resulting string.
+ */
+final class TrackingIdGenerator {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private static final int NODE_BITS = 12;
+
+    private static final long SEQUENCE_MASK = (1L << 64 - NODE_BITS) - 1;
+
+    private final long node;
+
+    private final AtomicLong sequence;
+
+    TrackingIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId >= 1 << NODE_BITS) {
+            throw new IllegalArgumentException("Node id must be in [0, " + ((1 << NODE_BITS) - 1) + "]: " + nodeId);
+        }
+        this.node = (long) nodeId << 64 - NODE_BITS;
+        this.sequence = new AtomicLong(System.currentTimeMillis() << 10);
+    }
+
+    String next() {
+        long id = node | sequence.getAndIncrement() & SEQUENCE_MASK;
+        char[] chars = new char[15];
+        // 13 characters of 5 bits cover 65 bits, the first one holds the top 4
+        int position = chars.length;
+        for (int i = 0; i < 13; i++) {
+            if (position == 10 || position == 4) {
+                chars[--position] = '-';
+            }
+            chars[--position] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}